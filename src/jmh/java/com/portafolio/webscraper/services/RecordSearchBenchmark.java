@@ -0,0 +1,81 @@
+package com.portafolio.webscraper.services;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link StatsService#recordSearch} frente a la versión anterior, sincronizada, con varios hilos buscando
+ * unos pocos términos (el caso de los términos de moda). Ejecutar con:
+ * {@code mvn -P benchmark test-compile exec:exec -Djmh.args="RecordSearch -t 8"}
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Threads(Threads.MAX)
+public class RecordSearchBenchmark {
+
+    private static final String[] HOT_TERMS = {
+            "iphone 15", "ps5", "airpods pro", "nintendo switch", "kindle", "rtx 4070", "ipad air", "galaxy s24"
+    };
+
+    /** Implementación anterior: un cerrojo global por búsqueda y una fecha nueva en cada llamada. */
+    static final class SynchronizedStats {
+        private final Map<String, Integer> searchCounts = new ConcurrentHashMap<>();
+        private final Map<String, LocalDateTime> lastSearchTimestamps = new ConcurrentHashMap<>();
+
+        synchronized void recordSearch(String searchTerm) {
+            if (searchTerm == null || searchTerm.trim().isEmpty()) {
+                return;
+            }
+            String normalizedTerm = StatsService.normalizeTerm(searchTerm);
+            searchCounts.merge(normalizedTerm, 1, Integer::sum);
+            lastSearchTimestamps.put(normalizedTerm, LocalDateTime.now());
+        }
+    }
+
+    /** Cada hilo recorre los términos desde su propia posición. */
+    @State(Scope.Thread)
+    public static class Cursor {
+        private int next;
+
+        @Setup
+        public void setUp() {
+            next = (int) (Thread.currentThread().getId() % HOT_TERMS.length);
+        }
+
+        String nextTerm() {
+            next = (next + 1) % HOT_TERMS.length;
+            return HOT_TERMS[next];
+        }
+    }
+
+    private StatsService lockFree;
+    private SynchronizedStats synchronizedStats;
+
+    @Setup
+    public void setUp() {
+        lockFree = new StatsService(10_000, 20, 168, 1000);
+        synchronizedStats = new SynchronizedStats();
+    }
+
+    @Benchmark
+    public void lockFree(Cursor cursor) {
+        lockFree.recordSearch(cursor.nextTerm());
+    }
+
+    @Benchmark
+    public void synchronizedMap(Cursor cursor) {
+        synchronizedStats.recordSearch(cursor.nextTerm());
+    }
+}
@@ -0,0 +1,132 @@
+package com.portafolio.webscraper.config;
+
+import com.portafolio.webscraper.repository.PriceSeriesStore;
+import com.portafolio.webscraper.scraper.CircuitBreaker;
+import com.portafolio.webscraper.scraper.PageFetcher;
+import com.portafolio.webscraper.scraper.PageStore;
+import com.portafolio.webscraper.scraper.ProductCache;
+import com.portafolio.webscraper.scraper.PolitenessScheduler;
+import com.portafolio.webscraper.scraper.ProductScraper;
+import com.portafolio.webscraper.scraper.strategies.ScraperStrategy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+@Configuration
+public class ScraperConfig {
+
+    private static final Logger logger = LoggerFactory.getLogger(ScraperConfig.class);
+
+    private final ObjectProvider<PageStore> pageStoreProvider;
+
+    public ScraperConfig(ObjectProvider<PageStore> pageStoreProvider) {
+        this.pageStoreProvider = pageStoreProvider;
+    }
+
+    @Bean
+    public PolitenessScheduler politenessScheduler(
+            @Value("${scraper.politeness.rate-per-second:2.0}") double ratePerSecond,
+            @Value("${scraper.politeness.burst:4}") int burst,
+            @Value("${scraper.politeness.max-in-flight:4}") int maxInFlight,
+            @Value("${scraper.politeness.max-wait-ms:15000}") long maxWaitMs) {
+        return new PolitenessScheduler(ratePerSecond, burst, maxInFlight, maxWaitMs);
+    }
+
+    /**
+     * Almacén de páginas en disco. Solo se crea con scraper.page-store.mode=record o replay.
+     */
+    @Bean(destroyMethod = "close")
+    @ConditionalOnExpression("'${scraper.page-store.mode:off}'.toLowerCase() != 'off'")
+    public PageStore pageStore(
+            @Value("${scraper.page-store.mode:off}") String mode,
+            @Value("${scraper.page-store.dir:data/pages}") String dir,
+            @Value("${scraper.page-store.ttl-minutes:360}") long ttlMinutes) throws IOException {
+        return new PageStore(Path.of(dir), PageStore.Mode.valueOf(mode.toUpperCase()), Duration.ofMinutes(ttlMinutes));
+    }
+
+    /**
+     * Series de precios en disco; las alimenta {@code PriceHistoryService}.
+     */
+    @Bean(destroyMethod = "close")
+    public PriceSeriesStore priceSeriesStore(
+            @Value("${scraper.price-history.dir:data/prices}") String dir) throws IOException {
+        return new PriceSeriesStore(Path.of(dir));
+    }
+
+    /**
+     * El fetcher configurado pasa a ser también el compartido, para que {@code WebDownloader} lo use.
+     */
+    @Bean
+    public PageFetcher pageFetcher(PolitenessScheduler politenessScheduler,
+                                   @Value("${scraper.fetch.max-body-bytes:8388608}") long maxBodyBytes) {
+        PageFetcher fetcher = new PageFetcher(politenessScheduler, pageStoreProvider.getIfAvailable(), maxBodyBytes);
+        PageFetcher.setDefault(fetcher);
+        return fetcher;
+    }
+
+    @Bean
+    public ProductScraper productScraper(
+            PageFetcher pageFetcher,
+            @Value("${scraper.circuit-breaker.failure-rate-threshold:50}") int failureRateThreshold,
+            @Value("${scraper.circuit-breaker.window-size:20}") int windowSize,
+            @Value("${scraper.circuit-breaker.minimum-calls:5}") int minimumCalls,
+            @Value("${scraper.circuit-breaker.open-duration-ms:30000}") long openDurationMs,
+            @Value("${scraper.circuit-breaker.half-open-probes:2}") int halfOpenProbes,
+            @Value("${scraper.search.mode:card-only}") String searchMode,
+            ObjectProvider<ProductCache> productCache) {
+        return new ProductScraper(pageFetcher, new CircuitBreaker.Settings(
+                failureRateThreshold, windowSize, minimumCalls, openDurationMs, halfOpenProbes),
+                ScraperStrategy.SearchMode.valueOf(searchMode.trim().toUpperCase().replace('-', '_')),
+                productCache.getIfAvailable(() -> ProductCache.NONE));
+    }
+
+    /**
+     * Ejecutor para el scraping por tienda. Las tareas pasan casi todo el tiempo bloqueadas en red,
+     * así que crece bajo demanda en lugar de limitarse como {@code taskExecutor}; la concurrencia real
+     * hacia cada tienda la acota {@link PageFetcher}. Con Java 21 puede sustituirse por
+     * {@code Executors.newVirtualThreadPerTaskExecutor()}.
+     */
+    @Bean(name = "scraperExecutor", destroyMethod = "shutdownNow")
+    public ExecutorService scraperExecutor() {
+        AtomicInteger counter = new AtomicInteger();
+        ThreadFactory threadFactory = runnable -> {
+            Thread thread = new Thread(runnable, "StoreScraper-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+        return Executors.newCachedThreadPool(threadFactory);
+    }
+
+    @Scheduled(fixedDelayString = "${scraper.page-store.eviction-interval-ms:3600000}")
+    public void evictExpiredPages() {
+        PageStore pageStore = pageStoreProvider.getIfAvailable();
+        if (pageStore == null) return;
+        try {
+            pageStore.evictExpired();
+        } catch (IOException e) {
+            logger.warn("No se pudo limpiar el almacén de páginas: {}", e.getMessage());
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUpConnections(ApplicationReadyEvent event) {
+        PageFetcher fetcher = event.getApplicationContext().getBean(PageFetcher.class);
+        ProductScraper scraper = event.getApplicationContext().getBean(ProductScraper.class);
+        fetcher.warmUp(scraper.getScrapers().keySet());
+    }
+}
@@ -1,10 +1,13 @@
 package com.portafolio.webscraper.config;
 
 import org.springframework.context.annotation.Bean;
+import org.springframework.security.config.Customizer;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
 import org.springframework.security.web.SecurityFilterChain;
+import org.springframework.security.web.csrf.CookieCsrfTokenRepository;
+import org.springframework.security.web.csrf.CsrfTokenRequestAttributeHandler;
 
 @Configuration
 @EnableWebSecurity
@@ -16,10 +19,18 @@ public class SecurityConfig {
                 .authorizeHttpRequests(authorize -> authorize
                         // Permite el acceso sin autenticación a estas rutas
                         .requestMatchers("/", "/css/**", "/js/**", "/images/**", "/favicon.ico").permitAll()
+                        // Los avisos de precio son de cada usuario
+                        .requestMatchers("/api/watches/**").authenticated()
                         .requestMatchers("/api/**").permitAll() // Permite acceso a tu API
                         // Cualquier otra petición requiere autenticación (puedes ajustarlo después)
                         .anyRequest().authenticated()
                 )
+                // Token CSRF en una cookie legible desde JS, que lo devuelve en la cabecera X-XSRF-TOKEN
+                .csrf(csrf -> csrf
+                        .csrfTokenRepository(CookieCsrfTokenRepository.withHttpOnlyFalse())
+                        .csrfTokenRequestHandler(new CsrfTokenRequestAttributeHandler()))
+                // Clientes de la API sin formulario de login
+                .httpBasic(Customizer.withDefaults())
                 // Esto es opcional por ahora, pero útil para formularios de login en el futuro
                 .formLogin(form -> form.permitAll())
                 .logout(logout -> logout.permitAll());
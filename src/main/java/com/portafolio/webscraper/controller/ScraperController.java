@@ -1,12 +1,24 @@
 package com.portafolio.webscraper.controller;
 
 import com.portafolio.webscraper.model.ProductInfo; // Asegúrate de que esta clase existe y es tu DTO de producto
+import com.portafolio.webscraper.repository.PriceSeriesStore;
+import com.portafolio.webscraper.scraper.RecommendationEngine;
+import com.portafolio.webscraper.scraper.recommendation.AIPriceRecommendationEngine;
+import com.portafolio.webscraper.service.PriceHistoryService;
 import com.portafolio.webscraper.service.ScraperService; // Asegúrate de que esta clase existe y contiene la lógica de búsqueda
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import java.io.IOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
 import java.util.Collections;
 import java.util.List;
 
@@ -15,11 +27,58 @@ import java.util.List;
 public class ScraperController {
 
     private static final Logger logger = LoggerFactory.getLogger(ScraperController.class); // Logger para registrar eventos
+    private static final long STREAM_TIMEOUT_MS = 30000; // Algo más que el plazo máximo de una búsqueda
+    private static final int MAX_HISTORY_POINTS = 10000;
     private final ScraperService scraperService; // Inyección de dependencia del servicio de scraping
+    private final PriceHistoryService priceHistoryService;
+    private final RecommendationEngine recommendationEngine = new AIPriceRecommendationEngine();
 
-    // Constructor para la inyección de dependencias de ScraperService
-    public ScraperController(ScraperService scraperService) {
+    // Constructor para la inyección de dependencias
+    public ScraperController(ScraperService scraperService, PriceHistoryService priceHistoryService) {
         this.scraperService = scraperService;
+        this.priceHistoryService = priceHistoryService;
+    }
+
+    /**
+     * Historial de precios de un producto.
+     * Acceso: GET /api/products/{id}/history?from=2024-01-01T00:00:00Z&to=...&limit=...
+     *
+     * @param id Identificador del producto ({@code productKey} en los resultados de búsqueda)
+     * @param from Inicio del rango (incluido); por defecto, hace 30 días
+     * @param to Fin del rango (excluido); por defecto, ahora
+     */
+    @GetMapping("/{id}/history")
+    public ResponseEntity<List<PriceSeriesStore.PricePoint>> getPriceHistory(
+            @PathVariable String id,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant to,
+            @RequestParam(defaultValue = "1000") int limit) {
+        Instant end = to != null ? to : Instant.now();
+        Instant start = from != null ? from : end.minus(Duration.ofDays(30));
+        if (!start.isBefore(end) || limit <= 0) {
+            return ResponseEntity.badRequest().body(Collections.emptyList());
+        }
+        return ResponseEntity.ok(priceHistoryService.getHistory(id, start, end, Math.min(limit, MAX_HISTORY_POINTS)));
+    }
+
+    /**
+     * Mínimo, media y máximo diarios (UTC) del precio de un producto, para gráficas de rangos largos.
+     * Acceso: GET /api/products/{id}/history/daily?from=2024-01-01&to=2024-12-31
+     *
+     * @param from Primer día (incluido); por defecto, hace un año
+     * @param to Último día (incluido); por defecto, hoy
+     */
+    @GetMapping("/{id}/history/daily")
+    public ResponseEntity<List<PriceSeriesStore.DailyRollup>> getDailyPriceHistory(
+            @PathVariable String id,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        LocalDate end = to != null ? to : LocalDate.now(ZoneOffset.UTC);
+        LocalDate start = from != null ? from : end.minusYears(1);
+        if (start.isAfter(end)) {
+            return ResponseEntity.badRequest().body(Collections.emptyList());
+        }
+        return ResponseEntity.ok(priceHistoryService.getDailyRollups(id, start, end));
     }
 
     /**
@@ -63,6 +122,50 @@ public class ScraperController {
         }
     }
 
+    /**
+     * Variante en streaming (Server-Sent Events) de la búsqueda.
+     * Acceso: GET /api/products/search/stream?name={nombre_producto}
+     *
+     * Emite un evento "product" por cada tienda en cuanto responde, después un evento
+     * "recommendation" con la mejor opción (si hubo resultados) y por último "done" con el total.
+     */
+    @GetMapping(value = "/search/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> streamProducts(@RequestParam(required = false) String name) {
+        if (name == null || name.trim().isEmpty()) {
+            logger.warn("Intento de búsqueda en streaming sin parámetro 'name'");
+            return ResponseEntity.badRequest().build();
+        }
+
+        logger.info("Buscando productos en streaming con nombre: {}", name);
+        SseEmitter emitter = new SseEmitter(STREAM_TIMEOUT_MS);
+
+        scraperService.streamProducts(name, product -> sendEvent(emitter, "product", product))
+                .whenComplete((products, error) -> {
+                    if (error != null) {
+                        logger.error("Error al buscar productos en streaming", error);
+                        emitter.completeWithError(error);
+                        return;
+                    }
+                    if (!products.isEmpty()) {
+                        sendEvent(emitter, "recommendation", recommendationEngine.recommendBestProduct(products));
+                    }
+                    logger.info("Streaming finalizado con {} productos para '{}'", products.size(), name);
+                    sendEvent(emitter, "done", products.size());
+                    emitter.complete();
+                });
+
+        return ResponseEntity.ok(emitter);
+    }
+
+    private void sendEvent(SseEmitter emitter, String eventName, Object data) {
+        try {
+            emitter.send(SseEmitter.event().name(eventName).data(data, MediaType.APPLICATION_JSON));
+        } catch (IOException | IllegalStateException e) {
+            // El cliente cerró la conexión; el resto de eventos se descartan.
+            logger.debug("No se pudo enviar el evento '{}': {}", eventName, e.getMessage());
+        }
+    }
+
     // Nota: Si necesitas habilitar CORS, puedes añadir @CrossOrigin(origins = "http://localhost:5173")
     // a esta clase o configurarlo globalmente en una clase WebConfig.
 }
\ No newline at end of file
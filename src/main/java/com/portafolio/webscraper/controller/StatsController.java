@@ -1,5 +1,14 @@
 package com.portafolio.webscraper.controller;
 
+import com.portafolio.webscraper.scraper.CircuitBreaker;
+import com.portafolio.webscraper.scraper.PolitenessScheduler;
+import com.portafolio.webscraper.scraper.ProductScraper;
+import com.portafolio.webscraper.service.PopularityRefresher;
+import com.portafolio.webscraper.service.PriceHistoryService;
+import com.portafolio.webscraper.service.SearchResultCache;
+import com.portafolio.webscraper.service.WatchlistService;
+import com.portafolio.webscraper.services.SearchSuggester;
+import com.portafolio.webscraper.services.StatsJournal;
 import com.portafolio.webscraper.services.StatsService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -7,9 +16,11 @@ import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
 import java.util.Collections;
+import java.util.List;
 import java.util.Map;
 
 @RestController
@@ -20,9 +31,29 @@ public class StatsController {
     private static final Logger logger = LoggerFactory.getLogger(StatsController.class);
 
     private final StatsService statsService;
+    private final StatsJournal statsJournal;
+    private final SearchSuggester searchSuggester;
+    private final PolitenessScheduler politenessScheduler;
+    private final ProductScraper productScraper;
+    private final SearchResultCache searchCache;
+    private final PriceHistoryService priceHistoryService;
+    private final PopularityRefresher popularityRefresher;
+    private final WatchlistService watchlistService;
 
-    public StatsController(StatsService statsService) {
+    public StatsController(StatsService statsService, StatsJournal statsJournal, SearchSuggester searchSuggester,
+                           PolitenessScheduler politenessScheduler,
+                           ProductScraper productScraper, SearchResultCache searchCache,
+                           PriceHistoryService priceHistoryService, PopularityRefresher popularityRefresher,
+                           WatchlistService watchlistService) {
         this.statsService = statsService;
+        this.statsJournal = statsJournal;
+        this.searchSuggester = searchSuggester;
+        this.politenessScheduler = politenessScheduler;
+        this.productScraper = productScraper;
+        this.searchCache = searchCache;
+        this.priceHistoryService = priceHistoryService;
+        this.popularityRefresher = popularityRefresher;
+        this.watchlistService = watchlistService;
     }
 
     @GetMapping("/searches")
@@ -45,4 +76,125 @@ public class StatsController {
                     .body(Collections.singletonMap("error", -1)); // Cuerpo opcional
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * Términos más buscados, de más a menos. {@code error} indica cuánto puede sobrestimar la cuenta
+     * un término que entró cuando ya se habían descartado otros (0 si es exacta).
+     * Acceso: GET /api/stats/top?limit=10
+     */
+    @GetMapping("/top")
+    public ResponseEntity<List<StatsService.SearchTermCount>> getTopSearches(@RequestParam(defaultValue = "10") int limit) {
+        return ResponseEntity.ok(statsService.getTopSearches(limit));
+    }
+
+    /**
+     * Términos en tendencia: los que más han crecido en la ventana respecto a su ritmo habitual.
+     * Acceso: GET /api/stats/trending?window=hour&limit=10 (window: minute, hour o day)
+     */
+    @GetMapping("/trending")
+    public ResponseEntity<List<StatsService.TrendingTerm>> getTrendingSearches(
+            @RequestParam(defaultValue = "hour") String window,
+            @RequestParam(defaultValue = "10") int limit) {
+        StatsService.Window parsed;
+        try {
+            parsed = StatsService.Window.valueOf(window.toUpperCase());
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Collections.emptyList());
+        }
+        if (limit <= 0) {
+            return ResponseEntity.badRequest().body(Collections.emptyList());
+        }
+        return ResponseEntity.ok(statsService.getTrending(parsed, limit));
+    }
+
+    /**
+     * Términos buscados junto a uno dado, con su peso de coocurrencia, de más a menos relacionado.
+     * Acceso: GET /api/stats/related?term=ipad&limit=10
+     */
+    @GetMapping("/related")
+    public ResponseEntity<List<StatsService.RelatedTerm>> getRelatedSearches(
+            @RequestParam String term,
+            @RequestParam(defaultValue = "10") int limit) {
+        if (term.isBlank() || limit <= 0) {
+            return ResponseEntity.badRequest().body(Collections.emptyList());
+        }
+        return ResponseEntity.ok(statsService.getRelatedTerms(term, limit));
+    }
+
+    /**
+     * Autocompletado: términos ya buscados que empiezan por el prefijo, de más a menos populares.
+     * Acceso: GET /api/stats/suggest?prefix=ipa&limit=5
+     */
+    @GetMapping("/suggest")
+    public ResponseEntity<List<SearchSuggester.Suggestion>> suggest(
+            @RequestParam String prefix,
+            @RequestParam(defaultValue = "10") int limit) {
+        if (limit <= 0) {
+            return ResponseEntity.badRequest().body(Collections.emptyList());
+        }
+        return ResponseEntity.ok(searchSuggester.suggest(prefix, limit));
+    }
+
+    /**
+     * Persistencia de las estadísticas: búsquedas pendientes de escribir, lotes escritos e instantáneas.
+     * Acceso: GET /api/stats/journal
+     */
+    @GetMapping("/journal")
+    public ResponseEntity<StatsJournal.JournalStats> getJournalStatistics() {
+        return ResponseEntity.ok(statsJournal.getStats());
+    }
+
+    /**
+     * Estado de la cola de cortesía por tienda: peticiones en cola, en vuelo y tiempos de espera.
+     * Acceso: GET /api/stats/hosts
+     */
+    @GetMapping("/hosts")
+    public ResponseEntity<Map<String, PolitenessScheduler.HostStats>> getHostStatistics() {
+        return ResponseEntity.ok(politenessScheduler.getHostStats());
+    }
+
+    /**
+     * Estado del circuit breaker de cada tienda.
+     * Acceso: GET /api/stats/breakers
+     */
+    @GetMapping("/breakers")
+    public ResponseEntity<Map<String, CircuitBreaker.Snapshot>> getCircuitBreakerStates() {
+        return ResponseEntity.ok(productScraper.getCircuitBreakerStates());
+    }
+
+    /**
+     * Contadores de la caché de búsquedas: aciertos, aciertos caducando, fallos y expulsiones.
+     * Acceso: GET /api/stats/cache
+     */
+    @GetMapping("/cache")
+    public ResponseEntity<SearchResultCache.CacheStats> getCacheStatistics() {
+        return ResponseEntity.ok(searchCache.getStats());
+    }
+
+    /**
+     * Estado del escritor del historial de precios: observaciones en cola, escritas y descartadas.
+     * Acceso: GET /api/stats/price-history
+     */
+    @GetMapping("/price-history")
+    public ResponseEntity<PriceHistoryService.WriterStats> getPriceHistoryStatistics() {
+        return ResponseEntity.ok(priceHistoryService.getWriterStats());
+    }
+
+    /**
+     * Estado del refresco en segundo plano de las búsquedas populares y presupuesto de peticiones disponible.
+     * Acceso: GET /api/stats/refresher
+     */
+    @GetMapping("/refresher")
+    public ResponseEntity<PopularityRefresher.RefresherStats> getRefresherStatistics() {
+        return ResponseEntity.ok(popularityRefresher.getStats());
+    }
+
+    /**
+     * Avisos de precio activos, reglas evaluadas, alertas disparadas y suscriptores conectados.
+     * Acceso: GET /api/stats/alerts
+     */
+    @GetMapping("/alerts")
+    public ResponseEntity<WatchlistService.AlertStats> getAlertStatistics() {
+        return ResponseEntity.ok(watchlistService.getStats());
+    }
+}
@@ -0,0 +1,104 @@
+package com.portafolio.webscraper.controller;
+
+import com.portafolio.webscraper.model.PriceWatch;
+import com.portafolio.webscraper.service.WatchlistService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.web.csrf.CsrfToken;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.security.Principal;
+import java.util.List;
+
+/**
+ * Avisos de bajada de precio y flujo de alertas. Requiere usuario autenticado: cada uno ve, borra y
+ * recibe las alertas solo de sus propios avisos. Las peticiones que modifican (POST, DELETE) llevan
+ * además la cabecera X-XSRF-TOKEN con el valor de la cookie XSRF-TOKEN (ver GET /api/watches/csrf).
+ */
+@RestController
+@RequestMapping("/api/watches")
+public class WatchlistController {
+
+    private static final Logger logger = LoggerFactory.getLogger(WatchlistController.class);
+    // El cliente se reconecta solo (EventSource) al vencer el plazo
+    private static final long ALERT_STREAM_TIMEOUT_MS = 30 * 60 * 1000;
+
+    public record WatchRequest(String productKey, String query, Double targetPrice) {
+    }
+
+    private final WatchlistService watchlistService;
+
+    public WatchlistController(WatchlistService watchlistService) {
+        this.watchlistService = watchlistService;
+    }
+
+    /**
+     * Crea un aviso. Acceso: POST /api/watches con {"productKey": "amazon-B0CM5JV268", "targetPrice": 199.99}
+     * o {"query": "ipad air", "targetPrice": 450}
+     */
+    @PostMapping
+    public ResponseEntity<PriceWatch> createWatch(@RequestBody WatchRequest request, Principal principal) {
+        try {
+            PriceWatch watch = watchlistService.create(principal.getName(), request.productKey(), request.query(),
+                    request.targetPrice());
+            logger.info("Aviso {} creado: {} <= {}", watch.getId(),
+                    watch.getProductKey() != null ? watch.getProductKey() : watch.getQuery(), watch.getTargetPrice());
+            return ResponseEntity.ok(watch);
+        } catch (IllegalArgumentException e) {
+            logger.warn("Aviso de precio no válido: {}", e.getMessage());
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    /**
+     * Acceso: GET /api/watches
+     */
+    @GetMapping
+    public ResponseEntity<List<PriceWatch>> listWatches(Principal principal) {
+        return ResponseEntity.ok(watchlistService.list(principal.getName()));
+    }
+
+    /**
+     * Acceso: DELETE /api/watches/{id}
+     */
+    @DeleteMapping("/{id}")
+    public ResponseEntity<Void> deleteWatch(@PathVariable long id, Principal principal) {
+        return watchlistService.delete(principal.getName(), id)
+                ? ResponseEntity.noContent().build()
+                : ResponseEntity.notFound().build();
+    }
+
+    /**
+     * Token CSRF para las peticiones que modifican; también deja la cookie XSRF-TOKEN.
+     * Acceso: GET /api/watches/csrf
+     */
+    @GetMapping("/csrf")
+    public CsrfToken csrfToken(CsrfToken token) {
+        return token;
+    }
+
+    /**
+     * Flujo de alertas (Server-Sent Events): un evento "alert" por cada aviso disparado del usuario.
+     * Acceso: GET /api/watches/alerts/stream
+     */
+    @GetMapping(value = "/alerts/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamAlerts(Principal principal) {
+        SseEmitter emitter = new SseEmitter(ALERT_STREAM_TIMEOUT_MS);
+        Runnable unsubscribe = watchlistService.subscribe(principal.getName(), alert -> {
+            try {
+                emitter.send(SseEmitter.event().name("alert").data(alert, MediaType.APPLICATION_JSON));
+            } catch (IOException | IllegalStateException e) {
+                // El cliente cerró la conexión; onError/onCompletion lo darán de baja
+                logger.debug("No se pudo enviar la alerta {}: {}", alert.watchId(), e.getMessage());
+            }
+        });
+        emitter.onCompletion(unsubscribe);
+        emitter.onTimeout(unsubscribe);
+        emitter.onError(error -> unsubscribe.run());
+        return emitter;
+    }
+}
@@ -0,0 +1,103 @@
+package com.portafolio.webscraper.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+
+/**
+ * Copia persistida de un {@link ProductInfo}, indexada por su URL canónica.
+ * Además de los datos del producto guarda cuántas veces se ha observado y cuántas cambió el precio,
+ * para calcular cuánto tiempo puede servirse sin volver a la tienda.
+ */
+@Entity
+@Table(name = "product_cache", indexes = {
+        @Index(name = "idx_product_cache_expires", columnList = "expiresAt"),
+        @Index(name = "idx_product_cache_store_product", columnList = "storeName, productId")
+})
+@Getter
+@Setter
+@NoArgsConstructor
+public class CachedProduct {
+
+    @Id
+    @Column(length = 512)
+    private String canonicalUrl;
+
+    @Column(length = 1024)
+    private String name;
+    private Double currentPrice;
+    private Double originalPrice;
+    private String currency;
+    private String storeName;
+    private String productId;
+    @Column(length = 2048)
+    private String imageUrl;
+    @Column(length = 2048)
+    private String productUrl;
+    private boolean available;
+    private Double rating;
+    private Integer reviewCount;
+    private String brand;
+
+    private Instant storedAt;
+    private Instant expiresAt;
+    private int observations;
+    private int priceChanges;
+
+    public ProductInfo toProductInfo() {
+        return ProductInfo.builder()
+                .name(name)
+                .currentPrice(currentPrice)
+                .originalPrice(originalPrice)
+                .currency(currency)
+                .storeName(storeName)
+                .productId(productId)
+                .imageUrl(imageUrl)
+                .productUrl(productUrl)
+                .available(available)
+                .rating(rating)
+                .reviewCount(reviewCount)
+                .brand(brand)
+                .lastUpdated(LocalDateTime.ofInstant(storedAt, ZoneId.systemDefault()))
+                .build();
+    }
+
+    /**
+     * Copia los datos del producto; cuenta un cambio de precio si difiere del guardado.
+     */
+    public void update(ProductInfo product, Instant now) {
+        if (observations > 0 && currentPrice != null && !currentPrice.equals(product.getCurrentPrice())) {
+            priceChanges++;
+        }
+        observations++;
+        name = product.getName();
+        currentPrice = product.getCurrentPrice();
+        originalPrice = product.getOriginalPrice();
+        currency = product.getCurrency();
+        storeName = product.getStoreName();
+        productId = product.getProductId();
+        imageUrl = product.getImageUrl();
+        productUrl = product.getProductUrl();
+        available = product.isAvailable();
+        rating = product.getRating();
+        reviewCount = product.getReviewCount();
+        brand = product.getBrand();
+        storedAt = now;
+    }
+
+    /**
+     * Proporción de observaciones en las que el precio había cambiado (0 si solo hay una).
+     */
+    public double getVolatility() {
+        return observations <= 1 ? 0 : (double) priceChanges / (observations - 1);
+    }
+}
@@ -0,0 +1,32 @@
+package com.portafolio.webscraper.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.Instant;
+
+/**
+ * Último resultado conocido de un término de búsqueda: las URLs canónicas de sus productos,
+ * separadas por saltos de línea y en el orden en que se mostraron.
+ */
+@Entity
+@Table(name = "search_cache")
+@Getter
+@Setter
+@NoArgsConstructor
+public class CachedSearch {
+
+    @Id
+    @Column(length = 255)
+    private String term;
+
+    @Column(length = 16384)
+    private String productUrls;
+
+    private Instant storedAt;
+}
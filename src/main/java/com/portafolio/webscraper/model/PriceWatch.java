@@ -0,0 +1,45 @@
+package com.portafolio.webscraper.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.Instant;
+
+/**
+ * Aviso de bajada de precio: se dispara cuando un producto observado cuesta {@code targetPrice} o menos.
+ * Vigila un producto concreto ({@code productKey}) o cualquier resultado de un término de búsqueda
+ * ({@code query}, normalizado); exactamente uno de los dos está informado. Cada aviso pertenece al
+ * usuario que lo creó ({@code owner}), el único que lo ve y recibe sus alertas.
+ */
+@Entity
+@Table(name = "price_watch")
+@Getter
+@Setter
+@NoArgsConstructor
+public class PriceWatch {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(length = 64)
+    private String owner;
+
+    @Column(length = 128)
+    private String productKey;
+
+    @Column(length = 255)
+    private String query;
+
+    @Column(nullable = false)
+    private Double targetPrice;
+
+    private Instant createdAt;
+}
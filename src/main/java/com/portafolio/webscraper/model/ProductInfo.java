@@ -1,5 +1,6 @@
 package com.portafolio.webscraper.model;
 
+import com.portafolio.webscraper.scraper.ProductUrls;
 import lombok.*;
 import java.time.LocalDateTime;
 import java.util.Objects;
@@ -12,7 +13,7 @@ import java.util.Optional;
 @Getter
 @Setter
 @ToString
-@Builder
+@Builder(toBuilder = true)
 @NoArgsConstructor
 @AllArgsConstructor
 public class ProductInfo {
@@ -50,6 +51,13 @@ public class ProductInfo {
 
     // --- MÉTODOS DE LÓGICA Y UTILIDAD ---
 
+    /**
+     * Identificador del producto en el historial de precios (/api/products/{id}/history).
+     */
+    public String getProductKey() {
+        return productUrl != null ? ProductUrls.productKey(productUrl) : null;
+    }
+
     public double getSafeRating() {
         return Optional.ofNullable(rating).orElse(0.0);
     }
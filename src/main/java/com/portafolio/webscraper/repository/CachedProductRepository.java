@@ -0,0 +1,15 @@
+package com.portafolio.webscraper.repository;
+
+import com.portafolio.webscraper.model.CachedProduct;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+
+import java.time.Instant;
+
+public interface CachedProductRepository extends JpaRepository<CachedProduct, String> {
+
+    @Modifying
+    @Query("delete from CachedProduct p where p.expiresAt < :cutoff")
+    int deleteExpiredBefore(Instant cutoff);
+}
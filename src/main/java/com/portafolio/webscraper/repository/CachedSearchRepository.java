@@ -0,0 +1,15 @@
+package com.portafolio.webscraper.repository;
+
+import com.portafolio.webscraper.model.CachedSearch;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+
+import java.time.Instant;
+
+public interface CachedSearchRepository extends JpaRepository<CachedSearch, String> {
+
+    @Modifying
+    @Query("delete from CachedSearch s where s.storedAt < :cutoff")
+    int deleteStoredBefore(Instant cutoff);
+}
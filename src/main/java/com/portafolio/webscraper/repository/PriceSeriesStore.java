@@ -0,0 +1,588 @@
+package com.portafolio.webscraper.repository;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.zip.CRC32;
+
+/**
+ * Almacén compacto de series de precios, un fichero mapeado en memoria de solo anexado.
+ * <p>
+ * Las observaciones de cada producto se agrupan en bloques de un solo día (UTC) y una sola moneda.
+ * Dentro del bloque los instantes se guardan como delta-de-delta y los precios (en céntimos) como
+ * diferencia con el anterior, ambos en varint zigzag con la disponibilidad en el bit bajo: con scrapes
+ * periódicos y precios estables cada punto ocupa unos 2 bytes. La cabecera del bloque lleva el mínimo,
+ * el máximo y la suma del día, así que los agregados diarios se sirven desde el índice en memoria sin
+ * tocar el fichero.
+ * <p>
+ * El bloque abierto de cada producto vive en memoria y se escribe al cambiar de día o de moneda, al
+ * llenarse o con {@link #sealOpenChunks()}. Para no perder esos puntos en un cierre abrupto, cada
+ * llamada a {@link #append} los anexa además a un diario ({@code prices.open}) con CRC y un fsync. El
+ * diario empieza en la posición del fichero que tenía la última escritura completa de bloques abiertos,
+ * así que al abrir se sabe qué parte ya llegó a bloques (los de ese producto escritos después) y solo
+ * se reaplica el resto.
+ * <p>
+ * El índice producto → bloques se reconstruye al abrir recorriendo el fichero; lo escrito tras la
+ * última posición confirmada en la cabecera se ignora.
+ */
+public class PriceSeriesStore implements Closeable {
+
+    private static final Logger logger = LoggerFactory.getLogger(PriceSeriesStore.class);
+
+    public record Observation(String productKey, Instant observedAt, double price, String currency,
+                              boolean available) {
+    }
+
+    /**
+     * Punto de la serie devuelto por /api/products/{id}/history.
+     */
+    public record PricePoint(Instant observedAt, Double price, String currency, boolean available) {
+    }
+
+    public record DailyRollup(LocalDate day, double min, double avg, double max, int observations, String currency) {
+    }
+
+    public record StoreStats(int products, long chunks, long points, long bytes) {
+    }
+
+    private static final int FILE_MAGIC = 0x50525345; // "PRSE"
+    private static final int OPEN_LOG_MAGIC = 0x50524F4C; // "PROL"
+    // magic | posición del fichero de series cuando empezó el diario
+    private static final int OPEN_LOG_HEADER_SIZE = Integer.BYTES + Long.BYTES;
+    private static final int CHUNK_MAGIC = 0x50434B31; // "PCK1"
+    // magic | reservado | posición de escritura confirmada
+    private static final int HEADER_SIZE = 16;
+    private static final int WRITE_POSITION_OFFSET = 8;
+    private static final long GROWTH_BYTES = 8L << 20;
+    private static final int MAX_POINTS_PER_CHUNK = 4096;
+    private static final long SECONDS_PER_DAY = 86400;
+
+    /** Bloque ya escrito; payloadOffset apunta a los puntos codificados dentro del fichero. */
+    private record ChunkRef(long firstSecond, long lastSecond, int count, long minCents, long maxCents,
+                            long sumCents, String currency, int payloadOffset, int payloadLength) {
+    }
+
+    private final FileChannel channel;
+    private final FileChannel openLog;
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<String, List<ChunkRef>> index = new HashMap<>();
+    private final Map<String, ChunkBuilder> openChunks = new HashMap<>();
+    private MappedByteBuffer buffer;
+    private int writePosition;
+    private long points;
+    private int sealedChunks;
+
+    public PriceSeriesStore(Path dir) throws IOException {
+        Files.createDirectories(dir);
+        this.channel = FileChannel.open(dir.resolve("prices.series"),
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        this.openLog = FileChannel.open(dir.resolve("prices.open"),
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        long size = channel.size();
+        this.buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, Math.max(size, GROWTH_BYTES));
+        if (size < HEADER_SIZE || buffer.getInt(0) != FILE_MAGIC) {
+            buffer.putInt(0, FILE_MAGIC);
+            buffer.putLong(WRITE_POSITION_OFFSET, HEADER_SIZE);
+        }
+        this.writePosition = (int) buffer.getLong(WRITE_POSITION_OFFSET);
+        loadIndex();
+        replayOpenLog();
+    }
+
+    /**
+     * Añade observaciones y, antes de volver, las deja en el diario de bloques abiertos con un fsync.
+     * Si una llega con un instante anterior al último del producto se le asigna ese último instante,
+     * para que la serie siga siendo monótona.
+     */
+    public void append(Collection<Observation> observations) throws IOException {
+        lock.writeLock().lock();
+        try {
+            ByteBuffer log = ByteBuffer.allocate(Math.max(256, observations.size() * 96));
+            int sealedBefore = sealedChunks;
+            for (Observation observation : observations) {
+                Observation stored = append(observation);
+                log = writeLogRecord(log, stored);
+            }
+            if (sealedChunks != sealedBefore) {
+                // Los bloques recién cerrados deben llegar a disco antes que el diario que los descuenta
+                buffer.force();
+            }
+            log.flip();
+            while (log.hasRemaining()) {
+                openLog.write(log);
+            }
+            openLog.force(false);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Puntos del producto en [from, to), en orden cronológico y como mucho {@code limit}.
+     */
+    public List<PricePoint> range(String productKey, Instant from, Instant to, int limit) {
+        long fromSecond = from.getEpochSecond();
+        long toSecond = to.getEpochSecond();
+        List<PricePoint> result = new ArrayList<>();
+        lock.readLock().lock();
+        try {
+            List<ChunkRef> chunks = index.getOrDefault(productKey, List.of());
+            ByteBuffer view = buffer.duplicate();
+            for (int i = firstOverlapping(chunks, fromSecond); i < chunks.size(); i++) {
+                ChunkRef chunk = chunks.get(i);
+                if (chunk.firstSecond() >= toSecond || result.size() >= limit) {
+                    break;
+                }
+                view.limit(chunk.payloadOffset() + chunk.payloadLength()).position(chunk.payloadOffset());
+                decode(view, chunk.firstSecond(), chunk.count(), chunk.currency(), fromSecond, toSecond, limit, result);
+            }
+            ChunkBuilder open = openChunks.get(productKey);
+            if (open != null && open.firstSecond < toSecond && result.size() < limit) {
+                decode(ByteBuffer.wrap(open.data, 0, open.size), open.firstSecond, open.count, open.currency,
+                        fromSecond, toSecond, limit, result);
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        return result;
+    }
+
+    /**
+     * Mínimo, media y máximo por día (UTC) y moneda entre {@code from} y {@code to}, ambos incluidos.
+     * Un día con precios en varias monedas da un agregado por moneda. Solo lee las cabeceras de los bloques.
+     */
+    public List<DailyRollup> dailyRollups(String productKey, LocalDate from, LocalDate to) {
+        long fromDay = from.toEpochDay();
+        long toDay = to.toEpochDay();
+        TreeMap<Long, Map<String, long[]>> days = new TreeMap<>();
+        lock.readLock().lock();
+        try {
+            List<ChunkRef> chunks = index.getOrDefault(productKey, List.of());
+            for (int i = firstOverlapping(chunks, fromDay * SECONDS_PER_DAY); i < chunks.size(); i++) {
+                ChunkRef chunk = chunks.get(i);
+                long day = Math.floorDiv(chunk.firstSecond(), SECONDS_PER_DAY);
+                if (day > toDay) {
+                    break;
+                }
+                if (day >= fromDay) {
+                    merge(days, day, chunk.currency(), chunk.minCents(), chunk.maxCents(), chunk.sumCents(),
+                            chunk.count());
+                }
+            }
+            ChunkBuilder open = openChunks.get(productKey);
+            if (open != null) {
+                long day = Math.floorDiv(open.firstSecond, SECONDS_PER_DAY);
+                if (day >= fromDay && day <= toDay) {
+                    merge(days, day, open.currency, open.minCents, open.maxCents, open.sumCents, open.count);
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        List<DailyRollup> rollups = new ArrayList<>(days.size());
+        days.forEach((day, byCurrency) -> byCurrency.forEach((currency, acc) ->
+                rollups.add(new DailyRollup(LocalDate.ofEpochDay(day), acc[0] / 100.0, acc[2] / 100.0 / acc[3],
+                        acc[1] / 100.0, (int) acc[3], currency))));
+        return rollups;
+    }
+
+    /**
+     * Escribe en el fichero todos los bloques abiertos, aunque no estén completos, y vacía el diario.
+     * Solo compacta: lo anexado ya es duradero por el diario.
+     */
+    public void sealOpenChunks() throws IOException {
+        lock.writeLock().lock();
+        try {
+            for (Map.Entry<String, ChunkBuilder> entry : openChunks.entrySet()) {
+                seal(entry.getKey(), entry.getValue());
+            }
+            openChunks.clear();
+            buffer.force();
+            // Si se corta aquí, el diario viejo se descuenta entero con los bloques recién escritos
+            resetOpenLog();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public StoreStats getStats() {
+        lock.readLock().lock();
+        try {
+            long chunks = 0;
+            for (List<ChunkRef> refs : index.values()) {
+                chunks += refs.size();
+            }
+            Set<String> products = new HashSet<>(index.keySet());
+            products.addAll(openChunks.keySet());
+            return new StoreStats(products.size(), chunks, points, writePosition);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            sealOpenChunks();
+        } finally {
+            try {
+                openLog.close();
+            } finally {
+                channel.close();
+            }
+        }
+    }
+
+    /**
+     * Añade una observación al bloque abierto de su producto y la devuelve tal como se guardó
+     * (con el instante ya ajustado y truncado a segundos).
+     */
+    private Observation append(Observation observation) throws IOException {
+        String key = observation.productKey();
+        long second = observation.observedAt().getEpochSecond();
+        long cents = Math.round(observation.price() * 100);
+        ChunkBuilder open = openChunks.get(key);
+        if (open == null) {
+            List<ChunkRef> chunks = index.get(key);
+            if (chunks != null) {
+                second = Math.max(second, chunks.get(chunks.size() - 1).lastSecond());
+            }
+        } else {
+            second = Math.max(second, open.lastSecond);
+            if (Math.floorDiv(second, SECONDS_PER_DAY) != Math.floorDiv(open.firstSecond, SECONDS_PER_DAY)
+                    || !Objects.equals(open.currency, observation.currency())
+                    || open.count >= MAX_POINTS_PER_CHUNK) {
+                seal(key, open);
+                open = null;
+            }
+        }
+        if (open == null) {
+            open = new ChunkBuilder(observation.currency());
+            openChunks.put(key, open);
+        }
+        open.add(second, cents, observation.available());
+        points++;
+        return new Observation(key, Instant.ofEpochSecond(second), cents / 100.0, observation.currency(),
+                observation.available());
+    }
+
+    private void seal(String productKey, ChunkBuilder chunk) throws IOException {
+        byte[] key = productKey.getBytes(StandardCharsets.UTF_8);
+        byte[] currency = chunk.currency == null ? new byte[0] : chunk.currency.getBytes(StandardCharsets.UTF_8);
+        int headerLength = Integer.BYTES + Short.BYTES + key.length + Short.BYTES + currency.length
+                + Long.BYTES * 2 + Integer.BYTES + Long.BYTES * 3 + Integer.BYTES;
+        ensureCapacity((long) writePosition + headerLength + chunk.size);
+
+        ByteBuffer out = buffer.duplicate();
+        out.position(writePosition);
+        out.putInt(CHUNK_MAGIC)
+                .putShort((short) key.length).put(key)
+                .putShort((short) currency.length).put(currency)
+                .putLong(chunk.firstSecond).putLong(chunk.lastSecond).putInt(chunk.count)
+                .putLong(chunk.minCents).putLong(chunk.maxCents).putLong(chunk.sumCents)
+                .putInt(chunk.size)
+                .put(chunk.data, 0, chunk.size);
+        ChunkRef ref = new ChunkRef(chunk.firstSecond, chunk.lastSecond, chunk.count, chunk.minCents,
+                chunk.maxCents, chunk.sumCents, chunk.currency, writePosition + headerLength, chunk.size);
+        // La posición se confirma después de escribir el bloque: un corte a medias deja el bloque fuera
+        writePosition = out.position();
+        buffer.putLong(WRITE_POSITION_OFFSET, writePosition);
+        index.computeIfAbsent(productKey, k -> new ArrayList<>()).add(ref);
+        sealedChunks++;
+    }
+
+    private void ensureCapacity(long required) throws IOException {
+        if (required <= buffer.capacity()) {
+            return;
+        }
+        if (required > Integer.MAX_VALUE) {
+            throw new IOException("El fichero de series de precios ha alcanzado su tamaño máximo");
+        }
+        long capacity = Math.min(Integer.MAX_VALUE, Math.max(required, (long) buffer.capacity() + GROWTH_BYTES));
+        buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, capacity);
+    }
+
+    private void loadIndex() {
+        ByteBuffer in = buffer.duplicate();
+        in.limit(writePosition).position(HEADER_SIZE);
+        while (in.remaining() >= Integer.BYTES && in.getInt() == CHUNK_MAGIC) {
+            String key = readString(in);
+            String currency = readString(in);
+            if (currency.isEmpty()) {
+                currency = null;
+            }
+            long firstSecond = in.getLong();
+            long lastSecond = in.getLong();
+            int count = in.getInt();
+            long minCents = in.getLong();
+            long maxCents = in.getLong();
+            long sumCents = in.getLong();
+            int payloadLength = in.getInt();
+            index.computeIfAbsent(key, k -> new ArrayList<>()).add(new ChunkRef(firstSecond, lastSecond, count,
+                    minCents, maxCents, sumCents, currency, in.position(), payloadLength));
+            in.position(in.position() + payloadLength);
+            points += count;
+        }
+        if (in.position() < writePosition) {
+            logger.warn("Series de precios: bloque dañado en la posición {}, se ignora el resto", in.position());
+            writePosition = in.position();
+        }
+        logger.info("Series de precios: {} productos, {} puntos, {} bytes", index.size(), points, writePosition);
+    }
+
+    // --- Diario de bloques abiertos ---
+
+    /**
+     * Reaplica el diario. Los bloques de un producto escritos después de la posición en que empezó el
+     * diario contienen, en orden, los primeros puntos de ese producto en el diario: esos se saltan.
+     * La lectura se detiene en el primer registro incompleto o con CRC incorrecto, y el diario se trunca ahí.
+     */
+    private void replayOpenLog() throws IOException {
+        long logSize = openLog.size();
+        ByteBuffer header = ByteBuffer.allocate(OPEN_LOG_HEADER_SIZE);
+        if (logSize < OPEN_LOG_HEADER_SIZE || openLog.read(header, 0) < OPEN_LOG_HEADER_SIZE
+                || header.getInt(0) != OPEN_LOG_MAGIC) {
+            resetOpenLog();
+            return;
+        }
+        long base = header.getLong(Integer.BYTES);
+        Map<String, Integer> alreadySealed = new HashMap<>();
+        index.forEach((key, chunks) -> {
+            for (ChunkRef chunk : chunks) {
+                if (chunk.payloadOffset() > base) {
+                    alreadySealed.merge(key, chunk.count(), Integer::sum);
+                }
+            }
+        });
+
+        ByteBuffer in = ByteBuffer.allocate((int) Math.min(logSize, Integer.MAX_VALUE));
+        openLog.read(in, 0);
+        in.flip().position(OPEN_LOG_HEADER_SIZE);
+        int replayed = 0;
+        long valid = in.position();
+        while (in.remaining() >= Integer.BYTES * 2) {
+            int length = in.getInt();
+            int crc = in.getInt();
+            if (length <= 0 || length > in.remaining()) {
+                break;
+            }
+            byte[] record = new byte[length];
+            in.get(record);
+            CRC32 checksum = new CRC32();
+            checksum.update(record);
+            if ((int) checksum.getValue() != crc) {
+                break;
+            }
+            valid = in.position();
+            Observation observation = readLogRecord(ByteBuffer.wrap(record));
+            Integer skip = alreadySealed.get(observation.productKey());
+            if (skip != null && skip > 0) {
+                alreadySealed.put(observation.productKey(), skip - 1);
+                continue;
+            }
+            append(observation);
+            replayed++;
+        }
+        if (valid < logSize) {
+            logger.warn("Series de precios: diario incompleto o dañado en la posición {}, se ignora el resto", valid);
+            openLog.truncate(valid);
+        }
+        openLog.position(valid);
+        if (replayed > 0) {
+            logger.info("Series de precios: {} puntos recuperados del diario de bloques abiertos", replayed);
+        }
+    }
+
+    private void resetOpenLog() throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(OPEN_LOG_HEADER_SIZE).putInt(OPEN_LOG_MAGIC).putLong(writePosition);
+        header.flip();
+        openLog.truncate(0);
+        openLog.write(header, 0);
+        openLog.position(OPEN_LOG_HEADER_SIZE);
+        openLog.force(false);
+    }
+
+    /** longitud | CRC32 | clave | moneda | segundo | céntimos | disponible */
+    private static ByteBuffer writeLogRecord(ByteBuffer log, Observation observation) {
+        byte[] key = observation.productKey().getBytes(StandardCharsets.UTF_8);
+        byte[] currency = observation.currency() == null ? new byte[0]
+                : observation.currency().getBytes(StandardCharsets.UTF_8);
+        int length = Short.BYTES + key.length + Short.BYTES + currency.length + Long.BYTES * 2 + 1;
+        if (log.remaining() < Integer.BYTES * 2 + length) {
+            ByteBuffer larger = ByteBuffer.allocate(Math.max(log.capacity() * 2, log.position() + length + 64));
+            log = larger.put(log.flip());
+        }
+        ByteBuffer record = ByteBuffer.allocate(length)
+                .putShort((short) key.length).put(key)
+                .putShort((short) currency.length).put(currency)
+                .putLong(observation.observedAt().getEpochSecond())
+                .putLong(Math.round(observation.price() * 100))
+                .put((byte) (observation.available() ? 1 : 0));
+        CRC32 checksum = new CRC32();
+        checksum.update(record.array());
+        return log.putInt(length).putInt((int) checksum.getValue()).put(record.array());
+    }
+
+    private static Observation readLogRecord(ByteBuffer in) {
+        String key = readString(in);
+        String currency = readString(in);
+        long second = in.getLong();
+        long cents = in.getLong();
+        boolean available = in.get() != 0;
+        return new Observation(key, Instant.ofEpochSecond(second), cents / 100.0,
+                currency.isEmpty() ? null : currency, available);
+    }
+
+    private static String readString(ByteBuffer in) {
+        byte[] bytes = new byte[in.getShort()];
+        in.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /** Primer bloque que termina en {@code second} o después (búsqueda binaria; los bloques están ordenados). */
+    private static int firstOverlapping(List<ChunkRef> chunks, long second) {
+        int low = 0;
+        int high = chunks.size();
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (chunks.get(mid).lastSecond() < second) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private static void decode(ByteBuffer in, long firstSecond, int count, String currency,
+                               long fromSecond, long toSecond, int limit, List<PricePoint> out) {
+        long second = firstSecond;
+        long delta = 0;
+        long cents = 0;
+        for (int i = 0; i < count && out.size() < limit; i++) {
+            if (i == 1) {
+                delta = readVarLong(in);
+                second += delta;
+            } else if (i > 1) {
+                delta += unzigzag(readVarLong(in));
+                second += delta;
+            }
+            long value = readVarLong(in);
+            cents += unzigzag(value >>> 1);
+            if (second >= toSecond) {
+                return;
+            }
+            if (second >= fromSecond) {
+                out.add(new PricePoint(Instant.ofEpochSecond(second), cents / 100.0, currency, (value & 1) != 0));
+            }
+        }
+    }
+
+    private static void merge(TreeMap<Long, Map<String, long[]>> days, long day, String currency,
+                              long min, long max, long sum, long count) {
+        Map<String, long[]> byCurrency = days.computeIfAbsent(day,
+                d -> new TreeMap<>(Comparator.nullsFirst(Comparator.naturalOrder())));
+        long[] acc = byCurrency.get(currency);
+        if (acc == null) {
+            byCurrency.put(currency, new long[] {min, max, sum, count});
+        } else {
+            acc[0] = Math.min(acc[0], min);
+            acc[1] = Math.max(acc[1], max);
+            acc[2] += sum;
+            acc[3] += count;
+        }
+    }
+
+    private static long zigzag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    private static long unzigzag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    private static long readVarLong(ByteBuffer in) {
+        long value = 0;
+        int shift = 0;
+        byte b;
+        do {
+            b = in.get();
+            value |= (long) (b & 0x7F) << shift;
+            shift += 7;
+        } while (b < 0);
+        return value;
+    }
+
+    /**
+     * Bloque en construcción: los puntos ya codificados más el estado necesario para codificar el siguiente.
+     */
+    private static final class ChunkBuilder {
+        private final String currency;
+        private byte[] data = new byte[64];
+        private int size;
+        private int count;
+        private long firstSecond;
+        private long lastSecond;
+        private long lastDelta;
+        private long lastCents;
+        private long minCents = Long.MAX_VALUE;
+        private long maxCents = Long.MIN_VALUE;
+        private long sumCents;
+
+        ChunkBuilder(String currency) {
+            this.currency = currency;
+        }
+
+        void add(long second, long cents, boolean available) {
+            if (count == 0) {
+                firstSecond = second;
+            } else {
+                long delta = second - lastSecond;
+                // El primer intervalo va tal cual (siempre >= 0); los siguientes, como diferencia con el anterior
+                writeVarLong(count == 1 ? delta : zigzag(delta - lastDelta));
+                lastDelta = delta;
+            }
+            writeVarLong(zigzag(cents - lastCents) << 1 | (available ? 1 : 0));
+            lastSecond = second;
+            lastCents = cents;
+            minCents = Math.min(minCents, cents);
+            maxCents = Math.max(maxCents, cents);
+            sumCents += cents;
+            count++;
+        }
+
+        private void writeVarLong(long value) {
+            if (size + 10 > data.length) {
+                data = Arrays.copyOf(data, data.length * 2);
+            }
+            while ((value & ~0x7FL) != 0) {
+                data[size++] = (byte) ((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            data[size++] = (byte) value;
+        }
+    }
+}
@@ -0,0 +1,12 @@
+package com.portafolio.webscraper.repository;
+
+import com.portafolio.webscraper.model.PriceWatch;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import java.util.List;
+
+public interface PriceWatchRepository extends JpaRepository<PriceWatch, Long> {
+
+    List<PriceWatch> findByOwner(String owner, Sort sort);
+}
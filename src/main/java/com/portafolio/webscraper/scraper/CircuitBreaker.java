@@ -0,0 +1,132 @@
+package com.portafolio.webscraper.scraper;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Circuit breaker por tienda.
+ * Cuenta el resultado de las últimas llamadas en una ventana deslizante; si la tasa de fallos supera
+ * el umbral, se abre y rechaza las llamadas al instante durante un tiempo. Pasado ese tiempo entra en
+ * semiabierto y deja pasar unas pocas llamadas de prueba: si todas van bien se cierra, si una falla
+ * vuelve a abrirse.
+ */
+public class CircuitBreaker {
+
+    public enum State { CLOSED, OPEN, HALF_OPEN }
+
+    /**
+     * @param failureRateThreshold Porcentaje de fallos (0-100) a partir del cual se abre
+     * @param windowSize Número de llamadas recientes que se tienen en cuenta
+     * @param minimumCalls Llamadas mínimas en la ventana antes de evaluar la tasa de fallos
+     * @param openDurationMs Tiempo que permanece abierto antes de probar de nuevo
+     * @param halfOpenProbes Llamadas de prueba permitidas en semiabierto
+     */
+    public record Settings(int failureRateThreshold, int windowSize, int minimumCalls,
+                           long openDurationMs, int halfOpenProbes) {
+
+        public static Settings defaults() {
+            return new Settings(50, 20, 5, 30000, 2);
+        }
+    }
+
+    public record Snapshot(State state, double failureRate, int bufferedCalls, long rejectedCalls) {
+    }
+
+    private final Settings settings;
+
+    // Protegidos por el monitor de la instancia
+    private final boolean[] outcomes;
+    private int nextIndex;
+    private int bufferedCalls;
+    private int failedCalls;
+    private State state = State.CLOSED;
+    private long openedAtNanos;
+    private int probesInFlight;
+    private int probeSuccesses;
+    private long rejectedCalls;
+
+    public CircuitBreaker(Settings settings) {
+        this.settings = settings;
+        this.outcomes = new boolean[settings.windowSize()];
+    }
+
+    /**
+     * Indica si la llamada puede realizarse. Si devuelve true, el llamante debe informar
+     * el resultado con {@link #onSuccess()} o {@link #onFailure()}.
+     */
+    public synchronized boolean tryAcquire() {
+        if (state == State.OPEN) {
+            if (System.nanoTime() - openedAtNanos < TimeUnit.MILLISECONDS.toNanos(settings.openDurationMs())) {
+                rejectedCalls++;
+                return false;
+            }
+            state = State.HALF_OPEN;
+            probesInFlight = 0;
+            probeSuccesses = 0;
+        }
+        if (state == State.HALF_OPEN) {
+            if (probesInFlight >= settings.halfOpenProbes()) {
+                rejectedCalls++;
+                return false;
+            }
+            probesInFlight++;
+        }
+        return true;
+    }
+
+    public synchronized void onSuccess() {
+        switch (state) {
+            case HALF_OPEN -> {
+                probesInFlight--;
+                if (++probeSuccesses >= settings.halfOpenProbes()) {
+                    close();
+                }
+            }
+            case CLOSED -> record(false);
+            case OPEN -> { /* Llamada iniciada antes de abrirse; se ignora */ }
+        }
+    }
+
+    public synchronized void onFailure() {
+        switch (state) {
+            case HALF_OPEN -> open();
+            case CLOSED -> {
+                record(true);
+                if (bufferedCalls >= settings.minimumCalls() && failureRate() >= settings.failureRateThreshold()) {
+                    open();
+                }
+            }
+            case OPEN -> { /* Ya abierto */ }
+        }
+    }
+
+    public synchronized Snapshot snapshot() {
+        return new Snapshot(state, failureRate(), bufferedCalls, rejectedCalls);
+    }
+
+    private void record(boolean failed) {
+        if (bufferedCalls == outcomes.length) {
+            if (outcomes[nextIndex]) failedCalls--;
+        } else {
+            bufferedCalls++;
+        }
+        outcomes[nextIndex] = failed;
+        if (failed) failedCalls++;
+        nextIndex = (nextIndex + 1) % outcomes.length;
+    }
+
+    private double failureRate() {
+        return bufferedCalls == 0 ? 0 : failedCalls * 100.0 / bufferedCalls;
+    }
+
+    private void open() {
+        state = State.OPEN;
+        openedAtNanos = System.nanoTime();
+    }
+
+    private void close() {
+        state = State.CLOSED;
+        nextIndex = 0;
+        bufferedCalls = 0;
+        failedCalls = 0;
+    }
+}
@@ -0,0 +1,345 @@
+package com.portafolio.webscraper.scraper;
+
+import org.jsoup.HttpStatusException;
+import org.jsoup.Jsoup;
+import org.jsoup.nodes.Document;
+import org.jsoup.nodes.Element;
+import org.jsoup.parser.Parser;
+import org.jsoup.parser.StreamParser;
+import org.jsoup.select.Evaluator;
+import org.jsoup.select.QueryParser;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.security.Security;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Predicate;
+
+/**
+ * Capa de descarga compartida por todas las estrategias de scraping.
+ * Usa un único {@link HttpClient} (HTTP/2 con fallback a HTTP/1.1 y conexiones keep-alive
+ * reutilizables), de modo que las búsquedas consecutivas a la misma tienda no vuelven a pagar
+ * el handshake TCP/TLS. Cada petición espera antes su turno en el {@link PolitenessScheduler}.
+ * Si se configura un {@link PageStore}, las páginas se sirven y se guardan en él antes de salir a la red.
+ * Las respuestas se piden comprimidas y se descomprimen en streaming directamente hacia el parser,
+ * con un tamaño máximo por respuesta.
+ */
+public class PageFetcher {
+
+    private static final Logger logger = LoggerFactory.getLogger(PageFetcher.class);
+
+    public static final String DEFAULT_USER_AGENT =
+            "Mozilla/5.0 (Windows NT 10.0; Win64; x64) AppleWebKit/537.36 (KHTML, like Gecko) Chrome/91.0.4472.124 Safari/537.36";
+
+    private static final Duration CONNECT_TIMEOUT = Duration.ofSeconds(5);
+    private static final Duration REQUEST_TIMEOUT = Duration.ofMillis(15000);
+    public static final long DEFAULT_MAX_BODY_BYTES = 8L * 1024 * 1024;
+    private static final String DNS_CACHE_TTL_SECONDS = "300";
+
+    static {
+        // Las tiendas son siempre las mismas: cacheamos sus resoluciones DNS más que los 30 s por defecto.
+        if (Security.getProperty("networkaddress.cache.ttl") == null) {
+            Security.setProperty("networkaddress.cache.ttl", DNS_CACHE_TTL_SECONDS);
+        }
+    }
+
+    private static volatile PageFetcher defaultInstance;
+
+    private final HttpClient client;
+    private final PolitenessScheduler scheduler;
+    private final PageStore pageStore;
+    private final long maxBodyBytes;
+
+    public PageFetcher() {
+        this(new PolitenessScheduler());
+    }
+
+    public PageFetcher(PolitenessScheduler scheduler) {
+        this(scheduler, null);
+    }
+
+    public PageFetcher(PolitenessScheduler scheduler, PageStore pageStore) {
+        this(scheduler, pageStore, DEFAULT_MAX_BODY_BYTES);
+    }
+
+    /**
+     * @param pageStore Almacén de páginas opcional; {@code null} o en modo OFF para desactivarlo
+     * @param maxBodyBytes Tamaño máximo de una respuesta ya descomprimida
+     */
+    public PageFetcher(PolitenessScheduler scheduler, PageStore pageStore, long maxBodyBytes) {
+        this.scheduler = scheduler;
+        this.maxBodyBytes = maxBodyBytes;
+        this.pageStore = pageStore != null && pageStore.getMode() != PageStore.Mode.OFF ? pageStore : null;
+        this.client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_2)
+                .followRedirects(HttpClient.Redirect.NORMAL)
+                .connectTimeout(CONNECT_TIMEOUT)
+                .build();
+    }
+
+    /**
+     * Instancia compartida usada por defecto por las estrategias y por {@link WebDownloader}.
+     */
+    public static PageFetcher getDefault() {
+        PageFetcher instance = defaultInstance;
+        if (instance == null) {
+            synchronized (PageFetcher.class) {
+                if (defaultInstance == null) {
+                    defaultInstance = new PageFetcher();
+                }
+                instance = defaultInstance;
+            }
+        }
+        return instance;
+    }
+
+    /**
+     * Sustituye la instancia compartida, p. ej. por la configurada en el contexto de Spring.
+     */
+    public static void setDefault(PageFetcher fetcher) {
+        defaultInstance = fetcher;
+    }
+
+    /**
+     * Descarga la URL y la parsea como documento HTML.
+     * @param url URL absoluta a descargar
+     * @param headers Cabeceras adicionales (User-Agent, Referer, Accept-Language...)
+     */
+    public Document fetchDocument(String url, Map<String, String> headers) throws IOException {
+        if (pageStore != null) {
+            FetchedPage page = fetchBytes(url, headers);
+            return Jsoup.parse(new ByteArrayInputStream(page.body()), page.charset(), page.baseUri());
+        }
+        URI uri = toUri(url);
+        try (PolitenessScheduler.Permit ignored = scheduler.acquire(uri.getHost())) {
+            HttpResponse<InputStream> response = send(uri, headers, HttpResponse.BodyHandlers.ofInputStream());
+            try (InputStream body = openBody(response, url)) {
+                // Sin charset en la cabecera, jsoup lo detecta por BOM o meta
+                String charset = charsetOf(response).map(Charset::name).orElse(null);
+                return Jsoup.parse(body, charset, response.uri().toString());
+            }
+        }
+    }
+
+    /**
+     * Descarga y parsea la URL solo hasta haber encontrado un elemento para cada selector indicado;
+     * a partir de ahí deja de leer la respuesta. El documento devuelto está incompleto, pero contiene
+     * todo lo anterior al último elemento encontrado. Si algún selector no aparece, se lee la página entera.
+     * @param requiredSelectors Selectores CSS de los campos que se van a extraer
+     */
+    public Document fetchDocumentUntil(String url, Map<String, String> headers, List<String> requiredSelectors)
+            throws IOException {
+        return fetchDocumentUntil(url, headers, requiredSelectors, element -> false);
+    }
+
+    /**
+     * Como {@link #fetchDocumentUntil(String, Map, List)}, pero además se deja de leer en cuanto
+     * {@code sufficient} devuelve true para un elemento recién completado, aunque falten selectores.
+     * Permite cortar en cuanto los datos estructurados de la página ya bastan.
+     * @param sufficient Se evalúa con cada elemento según el parser lo cierra, en orden de documento
+     */
+    public Document fetchDocumentUntil(String url, Map<String, String> headers, List<String> requiredSelectors,
+                                       Predicate<Element> sufficient) throws IOException {
+        if (pageStore != null) {
+            FetchedPage page = fetchBytes(url, headers);
+            return parseUntil(new ByteArrayInputStream(page.body()), page.charset(), page.baseUri(),
+                    requiredSelectors, sufficient);
+        }
+        URI uri = toUri(url);
+        try (PolitenessScheduler.Permit ignored = scheduler.acquire(uri.getHost())) {
+            HttpResponse<InputStream> response = send(uri, headers, HttpResponse.BodyHandlers.ofInputStream());
+            // Cerrar el cuerpo antes de tiempo cancela el resto de la descarga.
+            try (InputStream body = openBody(response, url)) {
+                String charset = charsetOf(response).map(Charset::name).orElse(null);
+                return parseUntil(body, charset, response.uri().toString(), requiredSelectors, sufficient);
+            }
+        }
+    }
+
+    /**
+     * Descarga la URL y devuelve el cuerpo como texto, respetando el charset declarado.
+     */
+    public String fetchString(String url, Map<String, String> headers) throws IOException {
+        FetchedPage page = fetchBytes(url, headers);
+        String charset = page.charset() != null ? page.charset() : ResponseBodies.sniffCharset(page.body(), page.body().length);
+        return new String(page.body(), charset != null ? Charset.forName(charset) : StandardCharsets.UTF_8);
+    }
+
+    public PolitenessScheduler getScheduler() {
+        return scheduler;
+    }
+
+    /**
+     * Precalienta DNS (queda en la caché de la JVM) y conexiones hacia los dominios indicados,
+     * para que la primera búsqueda no pague el handshake. Es asíncrono y los errores solo se registran.
+     * @param domains Dominios sin esquema, p. ej. "amazon.com"
+     */
+    public void warmUp(Collection<String> domains) {
+        for (String domain : domains) {
+            String host = domain.startsWith("www.") ? domain : "www." + domain;
+            HttpRequest request = HttpRequest.newBuilder(URI.create("https://" + host + "/"))
+                    .method("HEAD", HttpRequest.BodyPublishers.noBody())
+                    .header("User-Agent", DEFAULT_USER_AGENT)
+                    .timeout(REQUEST_TIMEOUT)
+                    .build();
+            client.sendAsync(request, HttpResponse.BodyHandlers.discarding())
+                    .whenComplete((response, error) -> {
+                        if (error != null) {
+                            logger.warn("No se pudo precalentar la conexión con {}: {}", host, error.getMessage());
+                        } else {
+                            logger.info("Conexión precalentada con {} ({})", host, response.version());
+                        }
+                    });
+        }
+    }
+
+    /**
+     * El parser en streaming no puede volver atrás al encontrar un meta charset, así que sin cabecera
+     * se detecta antes mirando los primeros bytes; si tampoco se declara ahí, se asume UTF-8.
+     */
+    private static Document parseUntil(InputStream body, String charset, String baseUri, List<String> selectors,
+                                       Predicate<Element> sufficient) throws IOException {
+        BufferedInputStream buffered = new BufferedInputStream(body);
+        String declared = charset != null ? charset : ResponseBodies.sniffCharset(buffered);
+        Charset decoding = declared != null ? Charset.forName(declared) : StandardCharsets.UTF_8;
+        List<Evaluator> pending = new ArrayList<>(selectors.size());
+        for (String selector : selectors) {
+            pending.add(QueryParser.parse(selector));
+        }
+        try (StreamParser parser = new StreamParser(Parser.htmlParser())) {
+            parser.parse(new InputStreamReader(buffered, decoding), baseUri);
+            // Avanza el parseo elemento a elemento (cada uno ya completo) hasta cumplir alguna condición
+            Iterator<Element> elements = parser.iterator();
+            while (!pending.isEmpty() && elements.hasNext()) {
+                Element element = elements.next();
+                pending.removeIf(element::is);
+                if (sufficient.test(element)) {
+                    break;
+                }
+            }
+            return parser.document();
+        }
+    }
+
+    /**
+     * Obtiene el cuerpo completo de la URL, pasando por el almacén de páginas si lo hay.
+     */
+    private FetchedPage fetchBytes(String url, Map<String, String> headers) throws IOException {
+        if (pageStore != null) {
+            Optional<PageStore.StoredPage> stored = pageStore.get(url);
+            if (stored.isPresent()) {
+                return new FetchedPage(stored.get().body(), stored.get().charset(), stored.get().finalUrl());
+            }
+            if (pageStore.getMode() == PageStore.Mode.REPLAY) {
+                throw new IOException("Página no disponible en el almacén (modo replay): " + url);
+            }
+        }
+
+        URI uri = toUri(url);
+        try (PolitenessScheduler.Permit ignored = scheduler.acquire(uri.getHost())) {
+            HttpResponse<InputStream> response = send(uri, headers, HttpResponse.BodyHandlers.ofInputStream());
+            byte[] body;
+            try (InputStream in = openBody(response, url)) {
+                body = in.readAllBytes();
+            }
+            String charset = charsetOf(response).map(Charset::name).orElse(null);
+            String finalUrl = response.uri().toString();
+            if (pageStore != null) {
+                try {
+                    pageStore.put(url, body, charset, finalUrl);
+                } catch (IOException e) {
+                    logger.warn("No se pudo guardar la página {} en el almacén: {}", url, e.getMessage());
+                }
+            }
+            return new FetchedPage(body, charset, finalUrl);
+        }
+    }
+
+    private <T> HttpResponse<T> send(URI uri, Map<String, String> headers, HttpResponse.BodyHandler<T> handler)
+            throws IOException {
+        HttpRequest.Builder builder = HttpRequest.newBuilder(uri)
+                .GET()
+                .timeout(REQUEST_TIMEOUT)
+                .header("User-Agent", DEFAULT_USER_AGENT)
+                .header("Accept-Encoding", ResponseBodies.ACCEPT_ENCODING);
+        headers.forEach(builder::setHeader);
+        try {
+            return client.send(builder.build(), handler);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Descarga interrumpida: " + uri, e);
+        }
+    }
+
+    /**
+     * Valida la respuesta y devuelve su cuerpo descomprimido y limitado en tamaño.
+     * Si la validación falla, cierra el cuerpo para liberar la conexión.
+     */
+    private InputStream openBody(HttpResponse<InputStream> response, String url) throws IOException {
+        InputStream raw = response.body();
+        try {
+            checkStatus(response, url);
+            long declaredLength = response.headers().firstValueAsLong("Content-Length").orElse(-1);
+            if (declaredLength > maxBodyBytes) {
+                throw new IOException("Respuesta demasiado grande (" + declaredLength + " bytes): " + url);
+            }
+            InputStream decoded = ResponseBodies.decode(raw, response.headers().firstValue("Content-Encoding").orElse(null));
+            return ResponseBodies.limit(decoded, maxBodyBytes, url);
+        } catch (IOException | RuntimeException e) {
+            raw.close();
+            throw e;
+        }
+    }
+
+    private static URI toUri(String url) throws IOException {
+        try {
+            URI uri = URI.create(url);
+            if (uri.getHost() == null) {
+                throw new IOException("URL sin host: " + url);
+            }
+            return uri;
+        } catch (IllegalArgumentException e) {
+            throw new IOException("URL inválida: " + url, e);
+        }
+    }
+
+    private static void checkStatus(HttpResponse<?> response, String url) throws HttpStatusException {
+        if (response.statusCode() >= 400) {
+            throw new HttpStatusException("HTTP error fetching URL", response.statusCode(), url);
+        }
+    }
+
+    private static Optional<Charset> charsetOf(HttpResponse<?> response) {
+        return response.headers().firstValue("Content-Type")
+                .map(contentType -> {
+                    int index = contentType.toLowerCase().indexOf("charset=");
+                    if (index == -1) return null;
+                    String name = contentType.substring(index + 8).replace("\"", "").split(";")[0].trim();
+                    try {
+                        return Charset.forName(name);
+                    } catch (Exception e) {
+                        return null;
+                    }
+                });
+    }
+
+    private record FetchedPage(byte[] body, String charset, String baseUri) {
+    }
+}
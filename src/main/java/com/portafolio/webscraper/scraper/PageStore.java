@@ -0,0 +1,389 @@
+package com.portafolio.webscraper.scraper;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Stream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Almacén en disco de las páginas descargadas.
+ * El contenido se guarda comprimido y direccionado por su SHA-256 ({@code blobs/ab/abcd....gz}), así que
+ * dos URLs con el mismo HTML comparten fichero. El índice URL → contenido es una tabla hash de
+ * direccionamiento abierto con registros de tamaño fijo sobre un fichero mapeado en memoria.
+ * Si la descarga acabó en otra URL tras redirecciones, esa URL final se guarda también como blob y el
+ * registro apunta a ella, para que al reproducir la página los enlaces relativos se resuelvan igual.
+ *
+ * <ul>
+ *   <li>{@link Mode#RECORD}: se sirve desde el almacén mientras la página no haya caducado y se guarda
+ *   cada descarga nueva.</li>
+ *   <li>{@link Mode#REPLAY}: solo se lee del almacén, ignorando la caducidad; nunca se sale a la red.
+ *   Sirve para repetir el parseo tras cambiar selectores o depurar sin conexión.</li>
+ * </ul>
+ */
+public class PageStore implements Closeable {
+
+    private static final Logger logger = LoggerFactory.getLogger(PageStore.class);
+
+    public enum Mode { OFF, RECORD, REPLAY }
+
+    /**
+     * Página guardada; {@code finalUrl} es la URL tras las redirecciones (la pedida si no las hubo).
+     */
+    public record StoredPage(byte[] body, String charset, String finalUrl, long fetchedAtMillis) {
+    }
+
+    // Con la URL final los registros crecieron: un índice "PGST" anterior no se reconoce y se crea de nuevo
+    private static final int MAGIC = 0x50475332; // "PGS2"
+    private static final int HEADER_SIZE = 16;
+    private static final int HASH_SIZE = 32;
+    private static final int CHARSET_SIZE = 24;
+    private static final byte[] NO_HASH = new byte[HASH_SIZE];
+    // urlHash | contentHash | fetchedAtMillis | charset | finalUrlHash (ceros si no hubo redirección)
+    private static final int RECORD_SIZE = HASH_SIZE + HASH_SIZE + Long.BYTES + CHARSET_SIZE + HASH_SIZE;
+    private static final int FETCHED_AT_OFFSET = HASH_SIZE * 2;
+    private static final int CHARSET_OFFSET = FETCHED_AT_OFFSET + Long.BYTES;
+    private static final int FINAL_URL_OFFSET = CHARSET_OFFSET + CHARSET_SIZE;
+    public static final int DEFAULT_SLOTS = 1 << 16;
+    // Un blob recién escrito puede no estar aún en el índice; no se borra hasta pasado este margen.
+    private static final long ORPHAN_GRACE_MS = 60000;
+
+    private final Path blobDir;
+    private final Mode mode;
+    private final long ttlMillis;
+    private final int slots;
+    private final FileChannel indexChannel;
+    private final MappedByteBuffer index;
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private int usedSlots;
+
+    public PageStore(Path root, Mode mode, Duration ttl) throws IOException {
+        this(root, mode, ttl, DEFAULT_SLOTS);
+    }
+
+    public PageStore(Path root, Mode mode, Duration ttl, int requestedSlots) throws IOException {
+        this.mode = mode;
+        this.ttlMillis = ttl.toMillis();
+        this.blobDir = root.resolve("blobs");
+        Files.createDirectories(blobDir);
+
+        Path indexFile = root.resolve("index.dat");
+        boolean existing = Files.exists(indexFile) && Files.size(indexFile) > HEADER_SIZE;
+        this.indexChannel = FileChannel.open(indexFile,
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+
+        int slotCount = requestedSlots;
+        if (existing) {
+            MappedByteBuffer header = indexChannel.map(FileChannel.MapMode.READ_ONLY, 0, HEADER_SIZE);
+            if (header.getInt(0) == MAGIC) {
+                slotCount = header.getInt(4);
+            } else {
+                logger.warn("Índice de páginas no reconocido en {}, se crea uno nuevo", indexFile);
+                existing = false;
+            }
+        }
+        this.slots = slotCount;
+        this.index = indexChannel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_SIZE + (long) slots * RECORD_SIZE);
+        if (existing) {
+            for (int slot = 0; slot < slots; slot++) {
+                if (isUsed(slot)) usedSlots++;
+            }
+        } else {
+            clearIndex();
+        }
+        logger.info("Almacén de páginas en {} (modo {}, {} entradas)", root, mode, usedSlots);
+    }
+
+    public Mode getMode() {
+        return mode;
+    }
+
+    /**
+     * Busca la última versión guardada de la URL. En modo RECORD las entradas caducadas no se devuelven.
+     */
+    public Optional<StoredPage> get(String url) throws IOException {
+        byte[] urlHash = sha256(url.getBytes(StandardCharsets.UTF_8));
+        byte[] contentHash = new byte[HASH_SIZE];
+        byte[] charsetBytes = new byte[CHARSET_SIZE];
+        byte[] finalUrlHash = new byte[HASH_SIZE];
+        long fetchedAt;
+
+        lock.readLock().lock();
+        try {
+            int slot = findSlot(urlHash);
+            if (slot < 0 || !isUsed(slot)) return Optional.empty();
+            int offset = offsetOf(slot);
+            fetchedAt = index.getLong(offset + FETCHED_AT_OFFSET);
+            index.get(offset + HASH_SIZE, contentHash);
+            index.get(offset + CHARSET_OFFSET, charsetBytes);
+            index.get(offset + FINAL_URL_OFFSET, finalUrlHash);
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        if (mode != Mode.REPLAY && System.currentTimeMillis() - fetchedAt > ttlMillis) {
+            return Optional.empty();
+        }
+        String finalUrl = url;
+        if (!Arrays.equals(finalUrlHash, NO_HASH)) {
+            Optional<byte[]> stored = readBlob(finalUrlHash);
+            if (stored.isEmpty()) return Optional.empty();
+            finalUrl = new String(stored.get(), StandardCharsets.UTF_8);
+        }
+        Optional<byte[]> body = readBlob(contentHash);
+        if (body.isEmpty()) return Optional.empty();
+        String charset = new String(charsetBytes, StandardCharsets.US_ASCII).trim();
+        return Optional.of(new StoredPage(body.get(), charset.isEmpty() ? null : charset, finalUrl, fetchedAt));
+    }
+
+    /**
+     * Guarda el cuerpo descargado de la URL. Si ya existe un blob con el mismo contenido, se reutiliza.
+     * @param finalUrl URL a la que llevaron las redirecciones; null o la misma URL si no las hubo
+     */
+    public void put(String url, byte[] body, String charset, String finalUrl) throws IOException {
+        byte[] contentHash = sha256(body);
+        writeBlob(contentHash, body);
+        byte[] finalUrlHash = NO_HASH;
+        if (finalUrl != null && !finalUrl.equals(url)) {
+            byte[] finalUrlBytes = finalUrl.getBytes(StandardCharsets.UTF_8);
+            finalUrlHash = sha256(finalUrlBytes);
+            writeBlob(finalUrlHash, finalUrlBytes);
+        }
+
+        byte[] urlHash = sha256(url.getBytes(StandardCharsets.UTF_8));
+        byte[] charsetBytes = new byte[CHARSET_SIZE];
+        Arrays.fill(charsetBytes, (byte) ' ');
+        if (charset != null) {
+            byte[] name = charset.getBytes(StandardCharsets.US_ASCII);
+            System.arraycopy(name, 0, charsetBytes, 0, Math.min(name.length, CHARSET_SIZE));
+        }
+
+        lock.writeLock().lock();
+        try {
+            if (usedSlots >= slots * 3 / 4) {
+                makeRoom();
+            }
+            int slot = findSlot(urlHash);
+            if (!isUsed(slot)) usedSlots++;
+            int offset = offsetOf(slot);
+            index.put(offset, urlHash);
+            index.put(offset + HASH_SIZE, contentHash);
+            index.putLong(offset + FETCHED_AT_OFFSET, System.currentTimeMillis());
+            index.put(offset + CHARSET_OFFSET, charsetBytes);
+            index.put(offset + FINAL_URL_OFFSET, finalUrlHash);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Elimina las entradas caducadas y los blobs que ya no referencia ninguna URL.
+     * En modo REPLAY no hace nada: ahí el almacén es la única fuente de páginas.
+     * @return número de entradas eliminadas
+     */
+    public int evictExpired() throws IOException {
+        if (mode == Mode.REPLAY) return 0;
+        int removed;
+        lock.writeLock().lock();
+        try {
+            removed = retainNewerThan(System.currentTimeMillis() - ttlMillis);
+            index.force();
+        } finally {
+            lock.writeLock().unlock();
+        }
+        deleteOrphanBlobs();
+        if (removed > 0) {
+            logger.info("Almacén de páginas: {} entradas caducadas eliminadas", removed);
+        }
+        return removed;
+    }
+
+    @Override
+    public void close() throws IOException {
+        lock.writeLock().lock();
+        try {
+            index.force();
+            indexChannel.close();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // --- Índice (llamar con el lock adecuado) ---
+
+    /**
+     * Devuelve el slot que contiene la URL o el primer slot libre de su secuencia de sondeo.
+     */
+    private int findSlot(byte[] urlHash) {
+        int slot = (int) Long.remainderUnsigned(leadingLong(urlHash), slots);
+        byte[] candidate = new byte[HASH_SIZE];
+        for (int probes = 0; probes < slots; probes++) {
+            if (!isUsed(slot)) return slot;
+            index.get(offsetOf(slot), candidate);
+            if (Arrays.equals(candidate, urlHash)) return slot;
+            slot = (slot + 1) % slots;
+        }
+        return -1;
+    }
+
+    /**
+     * Con el índice casi lleno, descarta primero lo caducado y, si no basta, la mitad más antigua.
+     * El corte es estrictamente posterior a la mediana: aunque muchas entradas compartan milisegundo,
+     * siempre se libera al menos la mitad de la tabla.
+     */
+    private void makeRoom() {
+        retainNewerThan(System.currentTimeMillis() - ttlMillis);
+        if (usedSlots >= slots * 3 / 4) {
+            long[] times = new long[usedSlots];
+            int i = 0;
+            for (int slot = 0; slot < slots; slot++) {
+                if (isUsed(slot)) times[i++] = index.getLong(offsetOf(slot) + FETCHED_AT_OFFSET);
+            }
+            Arrays.sort(times);
+            retainNewerThan(times[times.length / 2] + 1);
+        }
+    }
+
+    /**
+     * Reconstruye la tabla conservando solo las entradas posteriores a {@code cutoffMillis}.
+     * Reinsertar evita tener que manejar lápidas en el sondeo lineal.
+     */
+    private int retainNewerThan(long cutoffMillis) {
+        List<byte[]> kept = new ArrayList<>();
+        int before = usedSlots;
+        for (int slot = 0; slot < slots; slot++) {
+            if (!isUsed(slot)) continue;
+            int offset = offsetOf(slot);
+            if (index.getLong(offset + FETCHED_AT_OFFSET) >= cutoffMillis) {
+                byte[] record = new byte[RECORD_SIZE];
+                index.get(offset, record);
+                kept.add(record);
+            }
+        }
+        clearIndex();
+        for (byte[] record : kept) {
+            int slot = findSlot(Arrays.copyOf(record, HASH_SIZE));
+            index.put(offsetOf(slot), record);
+            usedSlots++;
+        }
+        return before - usedSlots;
+    }
+
+    private void clearIndex() {
+        byte[] empty = new byte[RECORD_SIZE];
+        for (int slot = 0; slot < slots; slot++) {
+            index.put(offsetOf(slot), empty);
+        }
+        index.putInt(0, MAGIC);
+        index.putInt(4, slots);
+        usedSlots = 0;
+    }
+
+    private boolean isUsed(int slot) {
+        return index.getLong(offsetOf(slot) + FETCHED_AT_OFFSET) != 0;
+    }
+
+    private static int offsetOf(int slot) {
+        return HEADER_SIZE + slot * RECORD_SIZE;
+    }
+
+    // --- Blobs ---
+
+    private Optional<byte[]> readBlob(byte[] contentHash) throws IOException {
+        Path blob = blobPath(contentHash);
+        if (!Files.exists(blob)) return Optional.empty();
+        try (InputStream in = new GZIPInputStream(Files.newInputStream(blob))) {
+            return Optional.of(in.readAllBytes());
+        }
+    }
+
+    private void writeBlob(byte[] contentHash, byte[] body) throws IOException {
+        Path blob = blobPath(contentHash);
+        if (Files.exists(blob)) return;
+        Files.createDirectories(blob.getParent());
+        Path tmp = Files.createTempFile(blob.getParent(), "blob", ".tmp");
+        try (OutputStream out = new GZIPOutputStream(Files.newOutputStream(tmp))) {
+            out.write(body);
+        }
+        Files.move(tmp, blob, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    private void deleteOrphanBlobs() throws IOException {
+        Set<String> referenced = new HashSet<>();
+        lock.readLock().lock();
+        try {
+            byte[] contentHash = new byte[HASH_SIZE];
+            for (int slot = 0; slot < slots; slot++) {
+                if (!isUsed(slot)) continue;
+                index.get(offsetOf(slot) + HASH_SIZE, contentHash);
+                referenced.add(blobPath(contentHash).getFileName().toString());
+                index.get(offsetOf(slot) + FINAL_URL_OFFSET, contentHash);
+                if (!Arrays.equals(contentHash, NO_HASH)) {
+                    referenced.add(blobPath(contentHash).getFileName().toString());
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        try (Stream<Path> blobs = Files.walk(blobDir)) {
+            blobs.filter(Files::isRegularFile)
+                    .filter(path -> path.toString().endsWith(".gz"))
+                    .filter(path -> !referenced.contains(path.getFileName().toString()))
+                    .filter(path -> path.toFile().lastModified() < System.currentTimeMillis() - ORPHAN_GRACE_MS)
+                    .forEach(path -> {
+                        try {
+                            Files.deleteIfExists(path);
+                        } catch (IOException e) {
+                            throw new UncheckedIOException(e);
+                        }
+                    });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    private Path blobPath(byte[] contentHash) {
+        String hex = HexFormat.of().formatHex(contentHash);
+        return blobDir.resolve(hex.substring(0, 2)).resolve(hex + ".gz");
+    }
+
+    private static long leadingLong(byte[] hash) {
+        long value = 0;
+        for (int i = 0; i < Long.BYTES; i++) {
+            value = (value << 8) | (hash[i] & 0xFF);
+        }
+        return value;
+    }
+
+    private static byte[] sha256(byte[] data) {
+        try {
+            return MessageDigest.getInstance("SHA-256").digest(data);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 no disponible", e);
+        }
+    }
+}
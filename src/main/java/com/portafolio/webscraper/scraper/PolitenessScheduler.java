@@ -0,0 +1,174 @@
+package com.portafolio.webscraper.scraper;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Controla el ritmo con el que se accede a cada tienda.
+ * Cada host tiene su propio token bucket (peticiones por segundo con ráfaga máxima) y su propio
+ * límite de peticiones en vuelo, de modo que una tienda lenta o saturada solo encola a sus propias
+ * peticiones y nunca a las de las demás. Dentro de un mismo host el orden es FIFO.
+ */
+public class PolitenessScheduler {
+
+    public static final double DEFAULT_RATE_PER_SECOND = 2.0;
+    public static final int DEFAULT_BURST = 4;
+    public static final int DEFAULT_MAX_IN_FLIGHT = 4;
+    public static final long DEFAULT_MAX_WAIT_MS = 15000;
+
+    private final double ratePerSecond;
+    private final int burst;
+    private final int maxInFlight;
+    private final long maxWaitMs;
+    private final Map<String, HostLane> lanes = new ConcurrentHashMap<>();
+
+    public PolitenessScheduler() {
+        this(DEFAULT_RATE_PER_SECOND, DEFAULT_BURST, DEFAULT_MAX_IN_FLIGHT, DEFAULT_MAX_WAIT_MS);
+    }
+
+    public PolitenessScheduler(double ratePerSecond, int burst, int maxInFlight, long maxWaitMs) {
+        if (ratePerSecond <= 0 || burst < 1 || maxInFlight < 1) {
+            throw new IllegalArgumentException("Límites de cortesía inválidos");
+        }
+        this.ratePerSecond = ratePerSecond;
+        this.burst = burst;
+        this.maxInFlight = maxInFlight;
+        this.maxWaitMs = maxWaitMs;
+    }
+
+    /**
+     * Sobrescribe los límites de un host concreto (p. ej. una tienda más estricta que el resto).
+     */
+    public void configureHost(String host, double ratePerSecond, int burst, int maxInFlight) {
+        lanes.put(normalizeHost(host), new HostLane(ratePerSecond, burst, maxInFlight));
+    }
+
+    /**
+     * Espera turno para hacer una petición al host. El permiso devuelto debe cerrarse al terminar.
+     * @throws IOException si la espera superaría el máximo configurado o el hilo es interrumpido
+     */
+    public Permit acquire(String host) throws IOException {
+        HostLane lane = lanes.computeIfAbsent(normalizeHost(host), h -> new HostLane(ratePerSecond, burst, maxInFlight));
+        long start = System.nanoTime();
+        lane.waiting.incrementAndGet();
+        // Si la petición no llega a salir, el token reservado se devuelve para no rebajar el ritmo del host
+        boolean tokenReserved = false;
+        try {
+            long delayNanos = lane.reserveToken();
+            tokenReserved = true;
+            if (TimeUnit.NANOSECONDS.toMillis(delayNanos) > maxWaitMs) {
+                lane.refundToken();
+                lane.rejected.increment();
+                throw new IOException("Cola de peticiones saturada para " + host);
+            }
+            if (delayNanos > 0) {
+                TimeUnit.NANOSECONDS.sleep(delayNanos);
+            }
+            long remainingMs = maxWaitMs - TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+            if (!lane.inFlight.tryAcquire(Math.max(remainingMs, 0), TimeUnit.MILLISECONDS)) {
+                lane.refundToken();
+                lane.rejected.increment();
+                throw new IOException("Demasiadas peticiones simultáneas hacia " + host);
+            }
+        } catch (InterruptedException e) {
+            if (tokenReserved) {
+                lane.refundToken();
+            }
+            Thread.currentThread().interrupt();
+            throw new IOException("Espera de turno interrumpida para " + host, e);
+        } finally {
+            lane.waiting.decrementAndGet();
+        }
+        lane.recordWait(System.nanoTime() - start);
+        return lane.inFlight::release;
+    }
+
+    /**
+     * Estado actual de cada host: peticiones en cola, en vuelo y tiempos de espera.
+     */
+    public Map<String, HostStats> getHostStats() {
+        Map<String, HostStats> stats = new TreeMap<>();
+        lanes.forEach((host, lane) -> stats.put(host, lane.snapshot()));
+        return stats;
+    }
+
+    private static String normalizeHost(String host) {
+        String lower = host.toLowerCase();
+        return lower.startsWith("www.") ? lower.substring(4) : lower;
+    }
+
+    /**
+     * Permiso de ejecución; liberarlo devuelve el hueco de concurrencia del host.
+     */
+    @FunctionalInterface
+    public interface Permit extends AutoCloseable {
+        @Override
+        void close();
+    }
+
+    public record HostStats(int queued, int inFlight, long granted, long rejected,
+                            double avgWaitMs, double maxWaitMs) {
+    }
+
+    private static class HostLane {
+        private final double tokensPerNano;
+        private final int burst;
+        private final int maxInFlight;
+        private final Semaphore inFlight;
+        private final AtomicInteger waiting = new AtomicInteger();
+        private final LongAdder granted = new LongAdder();
+        private final LongAdder rejected = new LongAdder();
+        private final LongAdder totalWaitNanos = new LongAdder();
+        private volatile long maxWaitNanos;
+
+        // Protegidos por el monitor de la instancia
+        private double tokens;
+        private long lastRefill;
+
+        HostLane(double ratePerSecond, int burst, int maxInFlight) {
+            this.tokensPerNano = ratePerSecond / TimeUnit.SECONDS.toNanos(1);
+            this.burst = burst;
+            this.maxInFlight = maxInFlight;
+            this.inFlight = new Semaphore(maxInFlight, true);
+            this.tokens = burst;
+            this.lastRefill = System.nanoTime();
+        }
+
+        /**
+         * Reserva un token y devuelve cuánto hay que esperar para poder usarlo.
+         * Los tokens pueden quedar en negativo: así las reservas posteriores esperan en orden.
+         */
+        synchronized long reserveToken() {
+            long now = System.nanoTime();
+            tokens = Math.min(burst, tokens + (now - lastRefill) * tokensPerNano);
+            lastRefill = now;
+            tokens -= 1;
+            return tokens >= 0 ? 0 : (long) (-tokens / tokensPerNano);
+        }
+
+        synchronized void refundToken() {
+            tokens = Math.min(burst, tokens + 1);
+        }
+
+        void recordWait(long waitNanos) {
+            granted.increment();
+            totalWaitNanos.add(waitNanos);
+            if (waitNanos > maxWaitNanos) {
+                maxWaitNanos = waitNanos;
+            }
+        }
+
+        HostStats snapshot() {
+            long grantedCount = granted.sum();
+            double avgWaitMs = grantedCount == 0 ? 0 : totalWaitNanos.sum() / 1e6 / grantedCount;
+            return new HostStats(waiting.get(), maxInFlight - inFlight.availablePermits(),
+                    grantedCount, rejected.sum(), avgWaitMs, maxWaitNanos / 1e6);
+        }
+    }
+}
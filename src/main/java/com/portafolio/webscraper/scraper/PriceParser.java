@@ -0,0 +1,184 @@
+package com.portafolio.webscraper.scraper;
+
+import java.text.DecimalFormatSymbols;
+import java.util.Locale;
+
+/**
+ * Parser de precios compartido por todas las estrategias.
+ * Recorre el texto carácter a carácter, sin expresiones regulares ni cadenas intermedias, y decide
+ * qué separador es el decimal según su posición: "1,299.99", "1.299,99", "$1,299" o "1 299,99 €"
+ * se interpretan correctamente. Solo cuando el caso es ambiguo ("1.299") se usa el separador
+ * decimal del locale.
+ */
+public final class PriceParser {
+
+    /** Parser para tiendas en inglés (punto decimal). */
+    public static final PriceParser US = new PriceParser('.');
+
+    private static final int MAX_DIGITS = 18;
+    private static final double[] POWERS_OF_TEN = {1, 10, 100, 1_000, 10_000, 100_000, 1_000_000};
+
+    // Códigos ISO reconocidos en el texto y el símbolo con el que se guardan en ProductInfo
+    private static final String[] CURRENCY_CODES = {"USD", "EUR", "GBP", "JPY", "MXN", "CAD", "COP", "INR"};
+    private static final String[] CURRENCY_SYMBOLS = {"$", "€", "£", "¥", "MX$", "CA$", "COP", "₹"};
+
+    private final char decimalSeparator;
+
+    private PriceParser(char decimalSeparator) {
+        this.decimalSeparator = decimalSeparator;
+    }
+
+    public static PriceParser forLocale(Locale locale) {
+        char separator = DecimalFormatSymbols.getInstance(locale).getDecimalSeparator();
+        return separator == '.' ? US : new PriceParser(separator);
+    }
+
+    /**
+     * Devuelve el primer importe del texto, o {@link Double#NaN} si no contiene ninguno.
+     * En rangos como "$10.99 - $15.99" se queda con el primero.
+     */
+    public double parse(CharSequence text) {
+        if (text == null) return Double.NaN;
+        int length = text.length();
+        int i = 0;
+        while (i < length && !isDigit(text.charAt(i))) i++;
+        if (i == length) return Double.NaN;
+
+        long mantissa = 0;
+        int digits = 0;
+        char lastSeparator = 0;
+        int digitsAfterLast = 0;
+        int lastSeparatorCount = 0;
+        boolean mixedSeparators = false;
+
+        for (; i < length; i++) {
+            char c = text.charAt(i);
+            if (isDigit(c)) {
+                if (digits < MAX_DIGITS) {
+                    mantissa = mantissa * 10 + (c - '0');
+                    digits++;
+                    digitsAfterLast++;
+                }
+                continue;
+            }
+            boolean markSeparator = c == '.' || c == ',';
+            boolean groupSeparator = c == ' ' || c == '\u00A0' || c == '\u202F' || c == '\'';
+            if (!(markSeparator || groupSeparator) || !startsDigitGroup(text, i + 1, markSeparator)) {
+                break;
+            }
+            if (groupSeparator) {
+                // Los espacios y apóstrofos solo agrupan miles
+                digitsAfterLast = 0;
+                continue;
+            }
+            if (lastSeparator != 0 && lastSeparator != c) {
+                mixedSeparators = true;
+            }
+            lastSeparatorCount = lastSeparator == c ? lastSeparatorCount + 1 : 1;
+            lastSeparator = c;
+            digitsAfterLast = 0;
+        }
+
+        int scale = 0;
+        if (lastSeparator != 0 && isDecimal(lastSeparator, lastSeparatorCount, digitsAfterLast, mixedSeparators)) {
+            scale = digitsAfterLast;
+        }
+        return scale < POWERS_OF_TEN.length
+                ? mantissa / POWERS_OF_TEN[scale]
+                : mantissa / Math.pow(10, scale);
+    }
+
+    /**
+     * Igual que {@link #parse(CharSequence)}, pero devuelve null si no hay importe o es cero,
+     * que es lo que esperan los builders de {@code ProductInfo}.
+     */
+    public Double parseOrNull(CharSequence text) {
+        double value = parse(text);
+        return Double.isNaN(value) || value <= 0 ? null : value;
+    }
+
+    /**
+     * Lee un número entero con separadores de miles ("1,234 ratings", "(12.345)").
+     * Devuelve null si el texto no contiene dígitos.
+     */
+    public static Integer parseCount(CharSequence text) {
+        if (text == null) return null;
+        int length = text.length();
+        int i = 0;
+        while (i < length && !isDigit(text.charAt(i))) i++;
+        if (i == length) return null;
+        long count = 0;
+        for (; i < length && count <= Integer.MAX_VALUE; i++) {
+            char c = text.charAt(i);
+            if (isDigit(c)) {
+                count = count * 10 + (c - '0');
+            } else if (!((c == '.' || c == ',' || c == ' ' || c == '\u00A0')
+                    && i + 1 < length && isDigit(text.charAt(i + 1)))) {
+                break;
+            }
+        }
+        return (int) Math.min(count, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Detecta la moneda del texto por su símbolo o código ISO. Devuelve el símbolo
+     * (siempre una constante, sin reservar memoria) o null si no aparece ninguna.
+     */
+    public static String detectCurrency(CharSequence text) {
+        if (text == null) return null;
+        int length = text.length();
+        for (int i = 0; i < length; i++) {
+            char c = text.charAt(i);
+            switch (c) {
+                case '$': return "$";
+                case '€': return "€";
+                case '£': return "£";
+                case '¥': return "¥";
+                case '₹': return "₹";
+                default:
+                    if (c >= 'A' && c <= 'Z' && i + 3 <= length) {
+                        for (int k = 0; k < CURRENCY_CODES.length; k++) {
+                            if (regionMatches(text, i, CURRENCY_CODES[k])) return CURRENCY_SYMBOLS[k];
+                        }
+                    }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * El último separador es decimal si no puede ser de miles: le siguen 1, 2 o más de 3 dígitos,
+     * o aparece una sola vez tras el otro tipo de separador ("1.299,99"). Con exactamente 3 dígitos
+     * y sin más pistas ("1,299" / "1.299") decide el locale.
+     */
+    private boolean isDecimal(char separator, int count, int digitsAfter, boolean mixed) {
+        if (count > 1) return false;
+        if (mixed) return true;
+        if (digitsAfter != 3) return true;
+        return separator == decimalSeparator;
+    }
+
+    /**
+     * Un separador solo forma parte del número si le sigue un dígito; los de agrupación
+     * (espacio, apóstrofo) además exigen un grupo de exactamente tres dígitos.
+     */
+    private static boolean startsDigitGroup(CharSequence text, int from, boolean markSeparator) {
+        int length = text.length();
+        if (from >= length || !isDigit(text.charAt(from))) return false;
+        if (markSeparator) return true;
+        int end = from;
+        while (end < length && isDigit(text.charAt(end))) end++;
+        return end - from == 3;
+    }
+
+    private static boolean regionMatches(CharSequence text, int offset, String code) {
+        for (int k = 0; k < code.length(); k++) {
+            if (text.charAt(offset + k) != code.charAt(k)) return false;
+        }
+        return true;
+    }
+
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+}
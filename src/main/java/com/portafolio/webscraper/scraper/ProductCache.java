@@ -0,0 +1,32 @@
+package com.portafolio.webscraper.scraper;
+
+import com.portafolio.webscraper.model.ProductInfo;
+
+import java.util.Optional;
+
+/**
+ * Caché de productos ya extraídos, indexada por la URL canónica del producto ({@link ProductUrls}),
+ * así que se puede consultar con cualquier variante de la URL.
+ * {@link ProductScraper} la consulta antes de descargar una ficha y guarda lo que descarga.
+ */
+public interface ProductCache {
+
+    /** Caché vacía, para cuando no hay persistencia configurada. */
+    ProductCache NONE = new ProductCache() {
+        @Override
+        public Optional<ProductInfo> find(String productUrl) {
+            return Optional.empty();
+        }
+
+        @Override
+        public void save(ProductInfo product) {
+        }
+    };
+
+    /**
+     * Devuelve el producto si está en caché y no ha caducado.
+     */
+    Optional<ProductInfo> find(String productUrl);
+
+    void save(ProductInfo product);
+}
@@ -4,32 +4,162 @@ import com.portafolio.webscraper.model.ProductInfo;
 import com.portafolio.webscraper.scraper.strategies.*;
 
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.concurrent.Executor;
 
 public class ProductScraper {
-    private static final Map<String, ScraperStrategy> SCRAPERS = Map.of(
-            "amazon.com", new AmazonScraper(),
-            "ebay.com", new EbayScraper(),
-            "walmart.com", new WalmartScraper(),
-            "bestbuy.com", new BestBuyScraper()
-    );
+    private final Map<String, ScraperStrategy> scrapers;
+    private final ScraperStrategy genericScraper;
+    private final Map<String, CircuitBreaker> circuitBreakers = new HashMap<>();
+    private final ScraperStrategy.SearchMode searchMode;
+    private final SingleFlight<String, ProductInfo> productFlights = new SingleFlight<>();
+    private final ProductCache productCache;
 
+    public ProductScraper() {
+        this(PageFetcher.getDefault());
+    }
+
+    public ProductScraper(PageFetcher fetcher) {
+        this(fetcher, CircuitBreaker.Settings.defaults());
+    }
+
+    public ProductScraper(PageFetcher fetcher, CircuitBreaker.Settings breakerSettings) {
+        this(fetcher, breakerSettings, ScraperStrategy.SearchMode.CARD_ONLY);
+    }
+
+    /**
+     * Todas las estrategias comparten el mismo {@link PageFetcher} y, por tanto, el mismo pool de conexiones.
+     * Cada tienda registrada tiene su propio {@link CircuitBreaker}. {@code searchMode} decide si las
+     * búsquedas se resuelven con la tarjeta del listado o visitando siempre la ficha del producto.
+     */
+    public ProductScraper(PageFetcher fetcher, CircuitBreaker.Settings breakerSettings,
+                          ScraperStrategy.SearchMode searchMode) {
+        this(fetcher, breakerSettings, searchMode, ProductCache.NONE);
+    }
+
+    public ProductScraper(PageFetcher fetcher, CircuitBreaker.Settings breakerSettings,
+                          ScraperStrategy.SearchMode searchMode, ProductCache productCache) {
+        this.searchMode = searchMode;
+        this.productCache = productCache;
+        this.scrapers = Map.of(
+                "amazon.com", new AmazonScraper(fetcher),
+                "ebay.com", new EbayScraper(fetcher),
+                "walmart.com", new WalmartScraper(fetcher),
+                "bestbuy.com", new BestBuyScraper(fetcher)
+        );
+        this.genericScraper = new GenericScraper(fetcher);
+        scrapers.keySet().forEach(domain -> circuitBreakers.put(domain, new CircuitBreaker(breakerSettings)));
+    }
+
+    /**
+     * Primero se consulta la {@link ProductCache}; si no está, las peticiones concurrentes
+     * de la misma URL comparten una sola descarga, cuyo resultado se guarda en la caché.
+     */
     public ProductInfo scrapeProduct(String url) throws ScraperStrategy.ScraperException {
         String domain = extractDomain(url);
-        ScraperStrategy scraper = SCRAPERS.getOrDefault(domain, new GenericScraper());
-        return scraper.scrape(url);
+        ScraperStrategy scraper = scrapers.getOrDefault(domain, genericScraper);
+        return cachedOrShared(url, false, () -> guarded(domain, () -> scraper.scrape(url)));
+    }
+
+    /**
+     * Cargador de fichas para las búsquedas de una tienda: mismo camino que {@link #scrapeProduct}
+     * (caché y descarga compartida por URL) pero sin volver a pasar por el circuit breaker, porque la
+     * búsqueda entera ya corre dentro de él. Con {@code revalidate} no se consulta la caché: la ficha
+     * se vuelve a descargar siempre.
+     */
+    private ScraperStrategy.ProductPageLoader pageLoader(ScraperStrategy scraper, boolean revalidate) {
+        return url -> cachedOrShared(url, revalidate, () -> scraper.scrape(url));
+    }
+
+    private ProductInfo cachedOrShared(String url, boolean revalidate, StrategyCall<ProductInfo> download)
+            throws ScraperStrategy.ScraperException {
+        if (!revalidate) {
+            Optional<ProductInfo> cached = productCache.find(url);
+            if (cached.isPresent()) {
+                return cached.get();
+            }
+        }
+        return productFlights.execute(ProductUrls.canonicalize(url), () -> {
+            ProductInfo product = download.run();
+            if (product != null && product.isValid()) {
+                productCache.save(product);
+            }
+            return product;
+        });
     }
 
     public ProductInfo scrapeFromSearch(String productName, String storeDomain)
             throws ScraperStrategy.ScraperException {
-        ScraperStrategy scraper = SCRAPERS.get(storeDomain);
+        ScraperStrategy scraper = scrapers.get(storeDomain);
+
+        if (scraper == null) {
+            throw new ScraperStrategy.ScraperException(
+                    "No se encontró una estrategia de scraping para el dominio: " + storeDomain);
+        }
+
+        return guarded(storeDomain,
+                () -> scraper.scrapeFirstResultFromSearch(productName, searchMode, pageLoader(scraper, false)));
+    }
+
+    public List<ProductInfo> scrapeTopFromSearch(String productName, String storeDomain, int limit,
+                                                 Executor detailExecutor, int maxParallelDetails)
+            throws ScraperStrategy.ScraperException {
+        return scrapeTopFromSearch(productName, storeDomain, limit, detailExecutor, maxParallelDetails, false);
+    }
+
+    /**
+     * Devuelve hasta {@code limit} resultados de la tienda. Las fichas que haya que descargar van en paralelo,
+     * con como mucho {@code maxParallelDetails} descargas a la vez para esta búsqueda. Con {@code revalidate}
+     * las fichas no se sirven de la {@link ProductCache}, para que una revalidación vuelva a la tienda.
+     */
+    public List<ProductInfo> scrapeTopFromSearch(String productName, String storeDomain, int limit,
+                                                 Executor detailExecutor, int maxParallelDetails,
+                                                 boolean revalidate)
+            throws ScraperStrategy.ScraperException {
+        ScraperStrategy scraper = scrapers.get(storeDomain);
 
         if (scraper == null) {
             throw new ScraperStrategy.ScraperException(
                     "No se encontró una estrategia de scraping para el dominio: " + storeDomain);
         }
 
-        return scraper.scrapeFirstResultFromSearch(productName);
+        return guarded(storeDomain, () -> scraper.scrapeTopResultsFromSearch(
+                productName, limit, searchMode, detailExecutor, maxParallelDetails, pageLoader(scraper, revalidate)));
+    }
+
+    /**
+     * Ejecuta la llamada a través del circuit breaker de la tienda, si la tienda tiene uno.
+     * Solo cuentan como fallo los errores de red o de parseo (excepciones con causa);
+     * "sin resultados" significa que la tienda respondió bien.
+     */
+    private <T> T guarded(String domain, StrategyCall<T> call) throws ScraperStrategy.ScraperException {
+        CircuitBreaker breaker = circuitBreakers.get(domain);
+        if (breaker == null) {
+            return call.run();
+        }
+        if (!breaker.tryAcquire()) {
+            throw new ScraperStrategy.ScraperException(
+                    "Circuito abierto para " + domain + ": la tienda se omite temporalmente");
+        }
+        try {
+            T result = call.run();
+            breaker.onSuccess();
+            return result;
+        } catch (ScraperStrategy.ScraperException e) {
+            if (e.getCause() != null) {
+                breaker.onFailure();
+            } else {
+                breaker.onSuccess();
+            }
+            throw e;
+        } catch (RuntimeException e) {
+            breaker.onFailure();
+            throw e;
+        }
     }
 
     private String extractDomain(String url) {
@@ -38,7 +168,18 @@ public class ProductScraper {
         return domainEnd == -1 ? url : url.substring(0, domainEnd);
     }
 
-    public static Map<String, ScraperStrategy> getScrapers() {
-        return Collections.unmodifiableMap(SCRAPERS);
+    public Map<String, ScraperStrategy> getScrapers() {
+        return Collections.unmodifiableMap(scrapers);
+    }
+
+    public Map<String, CircuitBreaker.Snapshot> getCircuitBreakerStates() {
+        Map<String, CircuitBreaker.Snapshot> states = new TreeMap<>();
+        circuitBreakers.forEach((domain, breaker) -> states.put(domain, breaker.snapshot()));
+        return states;
+    }
+
+    @FunctionalInterface
+    private interface StrategyCall<T> {
+        T run() throws ScraperStrategy.ScraperException;
     }
-}
\ No newline at end of file
+}
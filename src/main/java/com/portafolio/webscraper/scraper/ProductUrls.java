@@ -0,0 +1,99 @@
+package com.portafolio.webscraper.scraper;
+
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Forma canónica de las URLs de producto, para que el mismo producto enlazado desde la búsqueda,
+ * desde un anuncio o con distintos parámetros de seguimiento tenga una sola clave.
+ */
+public final class ProductUrls {
+
+    private static final Pattern AMAZON_ASIN = Pattern.compile("/(?:dp|gp/product)/([A-Z0-9]{10})");
+    private static final Pattern WALMART_ID = Pattern.compile("/ip/(?:[^/]+/)?(\\d+)");
+    private static final Pattern EBAY_ID = Pattern.compile("/itm/(?:[^/]+/)?(\\d+)");
+    private static final Pattern BESTBUY_SKU = Pattern.compile("(?:skuId=|/)(\\d{7})(?:\\.p)?");
+
+    private ProductUrls() {
+    }
+
+    /**
+     * Devuelve "dominio/ruta" sin esquema, "www.", parámetros ni fragmento; en las tiendas conocidas
+     * la ruta se reduce al identificador del producto (ASIN, item id, SKU).
+     */
+    public static String canonicalize(String url) {
+        String trimmed = url.trim();
+        URI uri;
+        try {
+            // Sin esquema (p. ej. una URL ya canónica) el host no se reconocería
+            uri = new URI(trimmed.contains("://") ? trimmed : "https://" + trimmed);
+        } catch (URISyntaxException e) {
+            return trimmed;
+        }
+        if (uri.getHost() == null) {
+            return trimmed;
+        }
+        String host = uri.getHost().toLowerCase();
+        if (host.startsWith("www.")) host = host.substring(4);
+        String path = uri.getRawPath() == null ? "" : uri.getRawPath();
+        String query = uri.getRawQuery() == null ? "" : uri.getRawQuery();
+
+        String id;
+        switch (host) {
+            case "amazon.com" -> {
+                if ((id = find(AMAZON_ASIN, path)) != null) return host + "/dp/" + id;
+            }
+            case "walmart.com" -> {
+                if ((id = find(WALMART_ID, path)) != null) return host + "/ip/" + id;
+            }
+            case "ebay.com" -> {
+                if ((id = find(EBAY_ID, path)) != null) return host + "/itm/" + id;
+            }
+            case "bestbuy.com" -> {
+                if ((id = find(BESTBUY_SKU, path + "?" + query)) != null) return host + "/sku/" + id;
+            }
+            default -> { }
+        }
+        if (path.endsWith("/") && path.length() > 1) {
+            path = path.substring(0, path.length() - 1);
+        }
+        return host + path;
+    }
+
+    /**
+     * Identificador estable y apto para una ruta REST: "amazon-B0CM5JV268", "walmart-123456789"...
+     * Para otras tiendas, el dominio seguido de un hash de la URL canónica.
+     */
+    public static String productKey(String url) {
+        String canonical = canonicalize(url);
+        int slash = canonical.indexOf('/');
+        String host = slash == -1 ? canonical : canonical.substring(0, slash);
+        String store = switch (host) {
+            case "amazon.com" -> canonical.startsWith("amazon.com/dp/") ? "amazon" : null;
+            case "walmart.com" -> canonical.startsWith("walmart.com/ip/") ? "walmart" : null;
+            case "ebay.com" -> canonical.startsWith("ebay.com/itm/") ? "ebay" : null;
+            case "bestbuy.com" -> canonical.startsWith("bestbuy.com/sku/") ? "bestbuy" : null;
+            default -> null;
+        };
+        if (store != null) {
+            return store + "-" + canonical.substring(canonical.lastIndexOf('/') + 1);
+        }
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(canonical.getBytes(StandardCharsets.UTF_8));
+            return host.replace('.', '-') + "-" + HexFormat.of().formatHex(digest, 0, 8);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 no disponible", e);
+        }
+    }
+
+    private static String find(Pattern pattern, String text) {
+        Matcher matcher = pattern.matcher(text);
+        return matcher.find() ? matcher.group(1) : null;
+    }
+}
@@ -0,0 +1,131 @@
+package com.portafolio.webscraper.scraper;
+
+import java.io.BufferedInputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Utilidades para tratar el cuerpo de las respuestas como flujo de bytes:
+ * descompresión incremental, límite de tamaño y detección de charset.
+ */
+final class ResponseBodies {
+
+    static final String ACCEPT_ENCODING = "gzip, deflate";
+    private static final int SNIFF_BYTES = 4096;
+    private static final int BUFFER_SIZE = 16 * 1024;
+
+    private ResponseBodies() {
+    }
+
+    /**
+     * Envuelve el flujo con el descompresor que indique la cabecera Content-Encoding.
+     */
+    static InputStream decode(InputStream raw, String contentEncoding) throws IOException {
+        if (contentEncoding == null || contentEncoding.isBlank() || contentEncoding.equalsIgnoreCase("identity")) {
+            return raw;
+        }
+        String encoding = contentEncoding.trim().toLowerCase();
+        if (encoding.equals("gzip") || encoding.equals("x-gzip")) {
+            return new GZIPInputStream(raw, BUFFER_SIZE);
+        }
+        if (encoding.equals("deflate")) {
+            // Muchos servidores mandan deflate "crudo" sin la cabecera zlib que exige el estándar.
+            BufferedInputStream buffered = new BufferedInputStream(raw, BUFFER_SIZE);
+            buffered.mark(2);
+            int first = buffered.read();
+            int second = buffered.read();
+            buffered.reset();
+            boolean zlibWrapped = first != -1 && second != -1
+                    && (first & 0x0F) == 8 && ((first << 8) | second) % 31 == 0;
+            return new InflaterInputStream(buffered, new Inflater(!zlibWrapped), BUFFER_SIZE);
+        }
+        throw new IOException("Content-Encoding no soportado: " + contentEncoding);
+    }
+
+    /**
+     * Corta la lectura con error si el cuerpo (ya descomprimido) supera {@code maxBytes}.
+     */
+    static InputStream limit(InputStream in, long maxBytes, String url) {
+        return new FilterInputStream(in) {
+            private long count;
+
+            @Override
+            public int read() throws IOException {
+                int b = super.read();
+                if (b != -1) count(1);
+                return b;
+            }
+
+            @Override
+            public int read(byte[] buffer, int offset, int length) throws IOException {
+                int read = super.read(buffer, offset, length);
+                if (read > 0) count(read);
+                return read;
+            }
+
+            private void count(int bytes) throws IOException {
+                count += bytes;
+                if (count > maxBytes) {
+                    throw new IOException("Respuesta demasiado grande (más de " + maxBytes + " bytes): " + url);
+                }
+            }
+        };
+    }
+
+    /**
+     * Detecta el charset mirando los primeros bytes sin consumirlos: primero el BOM y después
+     * un {@code charset=} en los meta del documento. Devuelve null si no se declara ninguno.
+     */
+    static String sniffCharset(BufferedInputStream in) throws IOException {
+        in.mark(SNIFF_BYTES);
+        byte[] prefix = in.readNBytes(SNIFF_BYTES);
+        in.reset();
+        return sniffCharset(prefix, prefix.length);
+    }
+
+    static String sniffCharset(byte[] body, int length) {
+        int available = Math.min(length, SNIFF_BYTES);
+        if (available >= 3 && (body[0] & 0xFF) == 0xEF && (body[1] & 0xFF) == 0xBB && (body[2] & 0xFF) == 0xBF) {
+            return StandardCharsets.UTF_8.name();
+        }
+        if (available >= 2 && (body[0] & 0xFF) == 0xFE && (body[1] & 0xFF) == 0xFF) {
+            return StandardCharsets.UTF_16BE.name();
+        }
+        if (available >= 2 && (body[0] & 0xFF) == 0xFF && (body[1] & 0xFF) == 0xFE) {
+            return StandardCharsets.UTF_16LE.name();
+        }
+
+        String head = new String(body, 0, available, StandardCharsets.ISO_8859_1).toLowerCase();
+        int index = head.indexOf("charset=");
+        while (index != -1) {
+            int start = index + "charset=".length();
+            while (start < head.length() && (head.charAt(start) == '"' || head.charAt(start) == '\'')) start++;
+            int end = start;
+            while (end < head.length() && isCharsetNameChar(head.charAt(end))) end++;
+            String name = head.substring(start, end);
+            if (!name.isEmpty() && isSupported(name)) {
+                return Charset.forName(name).name();
+            }
+            index = head.indexOf("charset=", end);
+        }
+        return null;
+    }
+
+    private static boolean isSupported(String name) {
+        try {
+            return Charset.isSupported(name);
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+    }
+
+    private static boolean isCharsetNameChar(char c) {
+        return Character.isLetterOrDigit(c) || c == '-' || c == '_' || c == '.' || c == ':';
+    }
+}
@@ -14,7 +14,12 @@ public class ScraperUtils {
         }
     }
 
+    /**
+     * @deprecated Usar {@link PriceParser}, que entiende los separadores de miles ("1,299.99").
+     */
+    @Deprecated
     public static String cleanPriceString(String price) {
-        return price.replaceAll("[^0-9.,]", "").replace(",", ".");
+        double value = PriceParser.US.parse(price);
+        return Double.isNaN(value) ? "" : Double.toString(value);
     }
 }
\ No newline at end of file
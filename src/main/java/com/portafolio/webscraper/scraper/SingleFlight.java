@@ -0,0 +1,83 @@
+package com.portafolio.webscraper.scraper;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Agrupa llamadas idénticas concurrentes: mientras una llamada para una clave está en curso,
+ * las demás con la misma clave no repiten el trabajo y reciben el mismo resultado (o el mismo error).
+ * No es una caché: en cuanto la llamada termina, la siguiente vuelve a ejecutarse.
+ */
+public final class SingleFlight<K, V> {
+
+    @FunctionalInterface
+    public interface Call<V, E extends Exception> {
+        V run() throws E;
+    }
+
+    private final ConcurrentMap<K, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+
+    /**
+     * Ejecuta {@code call} en el hilo actual si no hay otra igual en curso; si la hay, espera su resultado.
+     */
+    public <E extends Exception> V execute(K key, Call<V, E> call) throws E {
+        CompletableFuture<V> mine = new CompletableFuture<>();
+        CompletableFuture<V> existing = inFlight.putIfAbsent(key, mine);
+        if (existing != null) {
+            try {
+                return existing.join();
+            } catch (CompletionException e) {
+                throw SingleFlight.<E>rethrow(e.getCause());
+            }
+        }
+        try {
+            V value = call.run();
+            mine.complete(value);
+            return value;
+        } catch (Exception | Error e) {
+            mine.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, mine);
+        }
+    }
+
+    /**
+     * Versión para operaciones asíncronas: devuelve el valor en curso para la clave o lo crea con
+     * {@code start}. La clave queda libre cuando se completa la etapa que devuelve {@code done}.
+     */
+    public V share(K key, Supplier<V> start, Function<V, CompletionStage<?>> done) {
+        CompletableFuture<V> mine = new CompletableFuture<>();
+        CompletableFuture<V> existing = inFlight.putIfAbsent(key, mine);
+        if (existing != null) {
+            return existing.join();
+        }
+        V value;
+        try {
+            value = start.get();
+        } catch (RuntimeException | Error e) {
+            inFlight.remove(key, mine);
+            mine.completeExceptionally(e);
+            throw e;
+        }
+        mine.complete(value);
+        done.apply(value).whenComplete((ignored, error) -> inFlight.remove(key, mine));
+        return value;
+    }
+
+    /**
+     * La llamada solo puede lanzar {@code E} o excepciones no comprobadas, así que la causa
+     * se puede relanzar tal cual a quien esperaba.
+     */
+    @SuppressWarnings("unchecked")
+    private static <E extends Exception> E rethrow(Throwable cause) {
+        if (cause instanceof RuntimeException runtime) throw runtime;
+        if (cause instanceof Error error) throw error;
+        return (E) cause;
+    }
+}
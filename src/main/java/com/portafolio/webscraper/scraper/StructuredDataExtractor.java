@@ -0,0 +1,305 @@
+package com.portafolio.webscraper.scraper;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.jsoup.nodes.Document;
+import org.jsoup.nodes.Element;
+
+import java.io.IOException;
+import java.util.Currency;
+import java.util.Locale;
+import java.util.function.Predicate;
+
+/**
+ * Extrae los datos de producto que las páginas ya publican de forma estructurada, antes de recurrir
+ * a los selectores CSS de cada tienda. Por orden de preferencia:
+ * <ol>
+ *   <li>Bloques JSON-LD ({@code application/ld+json}) de tipo Product / Offer.</li>
+ *   <li>Estado embebido de la aplicación ({@code __NEXT_DATA__}, p. ej. en Walmart). Puede ocupar
+ *   varios MB, así que se recorre en streaming y solo se materializa el objeto "product".</li>
+ *   <li>Metadatos OpenGraph ({@code og:*}, {@code product:price:*}).</li>
+ * </ol>
+ * Un campo encontrado en una fuente no se sobrescribe con las siguientes.
+ */
+public final class StructuredDataExtractor {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private StructuredDataExtractor() {
+    }
+
+    /**
+     * Campos de producto encontrados en datos estructurados; los ausentes quedan a null.
+     * La moneda se devuelve como símbolo ("$"), igual que la guarda {@code ProductInfo}.
+     */
+    public record StructuredProduct(String name, Double price, String currency, String imageUrl,
+                                    Double rating, Integer reviewCount, Boolean available,
+                                    String brand, String productId) {
+
+        public boolean isEmpty() {
+            return name == null && price == null && imageUrl == null && rating == null;
+        }
+    }
+
+    public static StructuredProduct extract(Document doc) {
+        Collector collector = new Collector();
+        for (Element script : doc.select("script")) {
+            collector.accept(script);
+        }
+        return collector.finish(doc);
+    }
+
+    /**
+     * Extracción incremental para la lectura en streaming de {@link PageFetcher#fetchDocumentUntil}:
+     * recibe cada elemento según el parser lo completa y, como predicado, indica cuándo los bloques
+     * JSON-LD y {@code __NEXT_DATA__} vistos hasta ahí ya cubren todos los campos que leen las
+     * estrategias, para dejar de descargar la página. {@link #finish} añade OpenGraph y devuelve el
+     * resultado, sin volver a parsear los bloques ya vistos.
+     */
+    public static final class Collector implements Predicate<Element> {
+        private final Fields jsonLd = new Fields();
+        private final Fields nextData = new Fields();
+        private boolean nextDataSeen;
+
+        @Override
+        public boolean test(Element element) {
+            return accept(element) && isComplete();
+        }
+
+        /** Devuelve si el elemento era un bloque de datos estructurados. */
+        boolean accept(Element element) {
+            if (!"script".equals(element.normalName())) return false;
+            if ("application/ld+json".equalsIgnoreCase(element.attr("type"))) {
+                try {
+                    collectJsonLd(MAPPER.readTree(element.data()), jsonLd);
+                } catch (IOException e) {
+                    // Bloque mal formado: se ignora y se prueba el siguiente
+                }
+                return true;
+            }
+            if (!nextDataSeen && "__NEXT_DATA__".equals(element.id())) {
+                nextDataSeen = true;
+                try {
+                    collectNextData(element.data(), nextData);
+                } catch (IOException e) {
+                    // Estado embebido ilegible: se sigue con OpenGraph
+                }
+                return true;
+            }
+            return false;
+        }
+
+        /** Están todos los campos que las estrategias intentarían leer después con selectores CSS. */
+        boolean isComplete() {
+            Fields merged = merged();
+            return merged.name != null && merged.price != null && merged.currency != null
+                    && merged.imageUrl != null && merged.available != null
+                    && merged.rating != null && merged.reviewCount != null;
+        }
+
+        public StructuredProduct finish(Document doc) {
+            Fields fields = merged();
+            collectOpenGraph(doc, fields);
+            return fields.toProduct();
+        }
+
+        // JSON-LD tiene prioridad sobre el estado embebido, esté antes o después en la página
+        private Fields merged() {
+            Fields fields = new Fields();
+            fields.merge(jsonLd);
+            fields.merge(nextData);
+            return fields;
+        }
+    }
+
+    // --- JSON-LD ---
+
+    private static void collectJsonLd(JsonNode node, Fields fields) {
+        if (node == null) return;
+        if (node.isArray()) {
+            node.forEach(child -> collectJsonLd(child, fields));
+            return;
+        }
+        if (!node.isObject()) return;
+        if (node.has("@graph")) {
+            collectJsonLd(node.get("@graph"), fields);
+        }
+        if (!hasType(node, "Product")) return;
+
+        fields.name(text(node, "name"));
+        fields.imageUrl(imageOf(node.get("image")));
+        fields.productId(firstText(node, "sku", "productID", "gtin13", "gtin12", "mpn"));
+        JsonNode brand = node.get("brand");
+        fields.brand(brand != null && brand.isObject() ? text(brand, "name") : text(node, "brand"));
+
+        JsonNode rating = node.get("aggregateRating");
+        if (rating != null) {
+            fields.rating(number(rating.get("ratingValue")));
+            Double count = number(rating.has("reviewCount") ? rating.get("reviewCount") : rating.get("ratingCount"));
+            fields.reviewCount(count != null ? count.intValue() : null);
+        }
+
+        JsonNode offers = node.get("offers");
+        if (offers != null && offers.isArray() && !offers.isEmpty()) {
+            offers = offers.get(0);
+        }
+        if (offers != null && offers.isObject()) {
+            fields.price(number(offers.has("price") ? offers.get("price") : offers.get("lowPrice")));
+            fields.currency(text(offers, "priceCurrency"));
+            String availability = text(offers, "availability");
+            if (availability != null) {
+                fields.available(availability.endsWith("InStock") || availability.endsWith("LimitedAvailability"));
+            }
+        }
+    }
+
+    private static boolean hasType(JsonNode node, String type) {
+        JsonNode types = node.get("@type");
+        if (types == null) return false;
+        if (types.isArray()) {
+            for (JsonNode t : types) {
+                if (type.equals(t.asText())) return true;
+            }
+            return false;
+        }
+        return type.equals(types.asText());
+    }
+
+    private static String imageOf(JsonNode image) {
+        if (image == null) return null;
+        if (image.isArray()) return image.isEmpty() ? null : imageOf(image.get(0));
+        if (image.isObject()) return text(image, "url");
+        return image.asText(null);
+    }
+
+    // --- __NEXT_DATA__ ---
+
+    /**
+     * Recorre el JSON token a token y solo construye árbol para el primer objeto "product"
+     * que tenga nombre y precio, sin cargar el resto del estado en memoria.
+     */
+    private static void collectNextData(String json, Fields fields) throws IOException {
+        try (JsonParser parser = MAPPER.getFactory().createParser(json)) {
+            JsonToken token;
+            while ((token = parser.nextToken()) != null) {
+                if (token != JsonToken.FIELD_NAME || !"product".equals(parser.currentName())) continue;
+                if (parser.nextToken() != JsonToken.START_OBJECT) continue;
+                JsonNode product = parser.readValueAsTree();
+                if (product.has("name") && product.has("priceInfo")) {
+                    collectNextDataProduct(product, fields);
+                    return;
+                }
+            }
+        }
+    }
+
+    private static void collectNextDataProduct(JsonNode product, Fields fields) {
+        fields.name(text(product, "name"));
+        fields.brand(text(product, "brand"));
+        fields.productId(firstText(product, "usItemId", "id"));
+        JsonNode currentPrice = product.path("priceInfo").path("currentPrice");
+        fields.price(number(currentPrice.get("price")));
+        fields.currency(text(currentPrice, "currencyUnit"));
+        fields.imageUrl(text(product.path("imageInfo"), "thumbnailUrl"));
+        fields.rating(number(product.get("averageRating")));
+        Double reviews = number(product.get("numberOfReviews"));
+        fields.reviewCount(reviews != null ? reviews.intValue() : null);
+        String availability = text(product, "availabilityStatus");
+        if (availability != null) {
+            fields.available("IN_STOCK".equalsIgnoreCase(availability));
+        }
+    }
+
+    // --- OpenGraph ---
+
+    private static void collectOpenGraph(Document doc, Fields fields) {
+        fields.name(meta(doc, "og:title"));
+        fields.imageUrl(meta(doc, "og:image"));
+        String price = meta(doc, "product:price:amount");
+        fields.price(PriceParser.US.parseOrNull(price != null ? price : meta(doc, "og:price:amount")));
+        String currency = meta(doc, "product:price:currency");
+        fields.currency(currency != null ? currency : meta(doc, "og:price:currency"));
+    }
+
+    private static String meta(Document doc, String property) {
+        Element meta = doc.selectFirst("meta[property=" + property + "]");
+        if (meta == null || !meta.hasAttr("content")) return null;
+        String content = meta.attr("content").trim();
+        return content.isEmpty() ? null : content;
+    }
+
+    // --- Utilidades ---
+
+    private static String text(JsonNode node, String field) {
+        JsonNode value = node.get(field);
+        if (value == null || value.isNull() || value.isContainerNode()) return null;
+        String text = value.asText().trim();
+        return text.isEmpty() ? null : text;
+    }
+
+    private static String firstText(JsonNode node, String... fieldNames) {
+        for (String field : fieldNames) {
+            String value = text(node, field);
+            if (value != null) return value;
+        }
+        return null;
+    }
+
+    private static Double number(JsonNode value) {
+        if (value == null || value.isNull()) return null;
+        if (value.isNumber()) return value.asDouble();
+        return PriceParser.US.parseOrNull(value.asText());
+    }
+
+    private static String toSymbol(String currencyCode) {
+        if (currencyCode == null) return null;
+        try {
+            return Currency.getInstance(currencyCode.toUpperCase()).getSymbol(Locale.US);
+        } catch (IllegalArgumentException e) {
+            return currencyCode;
+        }
+    }
+
+    /**
+     * Acumulador: cada campo se fija solo la primera vez que se encuentra un valor.
+     */
+    private static class Fields {
+        private String name;
+        private Double price;
+        private String currency;
+        private String imageUrl;
+        private Double rating;
+        private Integer reviewCount;
+        private Boolean available;
+        private String brand;
+        private String productId;
+
+        void name(String value) { if (name == null) name = value; }
+        void price(Double value) { if (price == null && value != null && value > 0) price = value; }
+        void currency(String value) { if (currency == null) currency = toSymbol(value); }
+        void imageUrl(String value) { if (imageUrl == null) imageUrl = value; }
+        void rating(Double value) { if (rating == null) rating = value; }
+        void reviewCount(Integer value) { if (reviewCount == null) reviewCount = value; }
+        void available(Boolean value) { if (available == null) available = value; }
+        void brand(String value) { if (brand == null) brand = value; }
+        void productId(String value) { if (productId == null) productId = value; }
+
+        void merge(Fields other) {
+            name(other.name);
+            price(other.price);
+            if (currency == null) currency = other.currency;
+            imageUrl(other.imageUrl);
+            rating(other.rating);
+            reviewCount(other.reviewCount);
+            available(other.available);
+            brand(other.brand);
+            productId(other.productId);
+        }
+
+        StructuredProduct toProduct() {
+            return new StructuredProduct(name, price, currency, imageUrl, rating, reviewCount, available, brand, productId);
+        }
+    }
+}
@@ -1,20 +1,24 @@
 package com.portafolio.webscraper.scraper;
 
-import java.io.BufferedReader;
+import org.jsoup.nodes.Document;
+
 import java.io.IOException;
-import java.io.InputStreamReader;
-import java.net.HttpURLConnection;
-import java.net.URL;
-import java.util.stream.Collectors;
+import java.util.Map;
 
 public class WebDownloader {
+    private static final Map<String, String> HEADERS = Map.of("User-Agent", "Mozilla/5.0");
+
+    /**
+     * Descarga la página como texto, conservando los saltos de línea y respetando el charset declarado.
+     */
     public static String downloadHtml(String url) throws IOException {
-        HttpURLConnection conn = (HttpURLConnection) new URL(url).openConnection();
-        conn.setRequestProperty("User-Agent", "Mozilla/5.0");
+        return PageFetcher.getDefault().fetchString(url, HEADERS);
+    }
 
-        try (BufferedReader reader = new BufferedReader(
-                new InputStreamReader(conn.getInputStream()))) {
-            return reader.lines().collect(Collectors.joining());
-        }
+    /**
+     * Descarga y parsea la página directamente desde el flujo de bytes, sin pasar por un String intermedio.
+     */
+    public static Document downloadDocument(String url) throws IOException {
+        return PageFetcher.getDefault().fetchDocument(url, HEADERS);
     }
-}
\ No newline at end of file
+}
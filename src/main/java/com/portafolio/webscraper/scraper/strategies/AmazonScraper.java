@@ -1,8 +1,10 @@
 package com.portafolio.webscraper.scraper.strategies; // Asegúrate de que el paquete sea correcto
 
 import com.portafolio.webscraper.model.ProductInfo;
-import org.jsoup.Connection;
-import org.jsoup.Jsoup;
+import com.portafolio.webscraper.scraper.PageFetcher;
+import com.portafolio.webscraper.scraper.PriceParser;
+import com.portafolio.webscraper.scraper.StructuredDataExtractor;
+import com.portafolio.webscraper.scraper.StructuredDataExtractor.StructuredProduct;
 import org.jsoup.nodes.Document;
 import org.jsoup.nodes.Element;
 import org.jsoup.select.Elements;
@@ -11,55 +13,121 @@ import java.io.IOException;
 import java.net.URLEncoder;
 import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
 
 public class AmazonScraper implements ScraperStrategy {
 
+    private static final Map<String, String> HEADERS = Map.of(
+            "User-Agent", "Mozilla/5.0 (Windows NT 10.0; Win64; x64) AppleWebKit/537.36 (KHTML, like Gecko) Chrome/108.0.0.0 Safari/537.36",
+            "Accept-Language", "en-US,en;q=0.9",
+            "Referer", "https://www.google.com"
+    );
+
+    // Selectores usados por los métodos de extracción: la página se lee solo hasta encontrarlos todos
+    // (o hasta que los datos estructurados cubran todos los campos).
+    private static final List<String> PRODUCT_PAGE_SELECTORS = List.of(
+            "#productTitle",
+            "span.a-price span.a-offscreen",
+            "#landingImage",
+            "#acrPopover",
+            "#acrCustomerReviewText",
+            "#availability",
+            "#add-to-cart-button"
+    );
+
+    private final PageFetcher fetcher;
+
+    public AmazonScraper() {
+        this(PageFetcher.getDefault());
+    }
+
+    public AmazonScraper(PageFetcher fetcher) {
+        this.fetcher = fetcher;
+    }
+
     @Override
-    public ProductInfo scrapeFirstResultFromSearch(String productName) throws ScraperException {
+    public List<SearchHit> searchResults(String productName, int limit) throws ScraperException {
         try {
             String encodedName = URLEncoder.encode(productName, StandardCharsets.UTF_8);
             String searchUrl = "https://www.amazon.com/s?k=" + encodedName;
 
-            Document searchPage = createHumanConnection(searchUrl).get();
+            Document searchPage = fetcher.fetchDocument(searchUrl, HEADERS);
 
             Elements results = searchPage.select("div[data-component-type='s-search-result']");
-            Element firstResultLink = null;
+            List<SearchHit> hits = new ArrayList<>();
 
             for (Element result : results) {
+                if (hits.size() >= limit) break;
                 if (result.select("span:contains(Sponsored)").isEmpty()) {
-                    firstResultLink = result.selectFirst("h2 a.a-link-normal");
-                    if (firstResultLink != null) break;
+                    Element resultLink = result.selectFirst("h2 a.a-link-normal");
+                    if (resultLink != null) {
+                        String productUrl = resultLink.absUrl("href");
+                        hits.add(new SearchHit(productUrl, extractCard(result, productUrl)));
+                    }
                 }
             }
 
-            if (firstResultLink == null) {
+            if (hits.isEmpty()) {
                 throw new ScraperException("No se encontraron resultados de búsqueda para '" + productName + "' en Amazon.");
             }
-
-            String productUrl = firstResultLink.absUrl("href");
-            return this.scrape(productUrl);
+            return hits;
 
         } catch (IOException e) {
             throw new ScraperException("Error durante la búsqueda en Amazon para: " + productName, e);
         }
     }
 
+    /**
+     * Construye el producto con los datos de la tarjeta del listado, o null si no tiene título.
+     */
+    private ProductInfo extractCard(Element card, String productUrl) {
+        Element title = card.selectFirst("h2 span");
+        if (title == null || title.text().isBlank()) {
+            return null;
+        }
+        Element price = card.selectFirst("span.a-price:not(.a-text-price) span.a-offscreen");
+        Element image = card.selectFirst("img.s-image");
+        Element rating = card.selectFirst("span.a-icon-alt");
+        Element reviews = card.selectFirst("span.a-size-base.s-underline-text");
+        return ProductInfo.builder()
+                .name(title.text().trim())
+                .currentPrice(price != null ? PriceParser.US.parseOrNull(price.text()) : null)
+                .currency(price != null ? PriceParser.detectCurrency(price.text()) : null)
+                .imageUrl(image != null ? image.absUrl("src") : null)
+                .productUrl(productUrl)
+                .storeName("Amazon")
+                .available(!card.text().contains("Currently unavailable"))
+                .rating(rating != null ? PriceParser.US.parseOrNull(rating.text()) : null)
+                .reviewCount(reviews != null ? PriceParser.parseCount(reviews.text()) : null)
+                .lastUpdated(LocalDateTime.now())
+                .build();
+    }
+
     @Override
     public ProductInfo scrape(String url) throws ScraperException {
         try {
-            Document doc = createHumanConnection(url).get();
+            // Se deja de leer en cuanto están todos los selectores o los datos estructurados ya bastan
+            StructuredDataExtractor.Collector structured = new StructuredDataExtractor.Collector();
+            Document doc = fetcher.fetchDocumentUntil(url, HEADERS, PRODUCT_PAGE_SELECTORS, structured);
 
             // --- CORRECCIONES EN EL BUILDER ---
+            // Primero los datos estructurados; los selectores CSS solo cubren lo que falte
+            StructuredProduct data = structured.finish(doc);
             return ProductInfo.builder()
-                    .name(extractTitle(doc))
-                    .currentPrice(extractPrice(doc))
-                    .imageUrl(extractImage(doc))
-                    .productUrl(url)                  // ANTES: sourceUrl
+                    .name(data.name() != null ? data.name() : extractTitle(doc))
+                    .currentPrice(data.price() != null ? data.price() : extractPrice(doc))
+                    .currency(data.currency() != null ? data.currency() : extractCurrency(doc))
+                    .imageUrl(data.imageUrl() != null ? data.imageUrl() : extractImage(doc))
+                    .productUrl(url)                      // ANTES: sourceUrl
                     .storeName("Amazon")              // ANTES: seller
-                    .available(checkAvailability(doc)) // ANTES: inStock
-                    .rating(extractRating(doc))
-                    .reviewCount(extractReviewCount(doc))
-                    .lastUpdated(LocalDateTime.now()) // ANTES: scrapedAt
+                    .available(data.available() != null ? data.available() : checkAvailability(doc))
+                    .rating(data.rating() != null ? data.rating() : extractRating(doc))
+                    .reviewCount(data.reviewCount() != null ? data.reviewCount() : extractReviewCount(doc))
+                    .brand(data.brand())
+                    .productId(data.productId())
+                    .lastUpdated(LocalDateTime.now())     // ANTES: scrapedAt
                     .build();
 
         } catch (Exception e) {
@@ -67,14 +135,6 @@ public class AmazonScraper implements ScraperStrategy {
         }
     }
 
-    private Connection createHumanConnection(String url) {
-        return Jsoup.connect(url)
-                .userAgent("Mozilla/5.0 (Windows NT 10.0; Win64; x64) AppleWebKit/537.36 (KHTML, like Gecko) Chrome/108.0.0.0 Safari/537.36")
-                .header("Accept-Language", "en-US,en;q=0.9")
-                .referrer("https://www.google.com")
-                .timeout(15000);
-    }
-
     // --- MÉTODOS DE EXTRACCIÓN (sin cambios) ---
     private String extractTitle(Document doc) {
         Element titleElement = doc.selectFirst("#productTitle");
@@ -84,17 +144,12 @@ public class AmazonScraper implements ScraperStrategy {
     private Double extractPrice(Document doc) {
         // Lógica para encontrar el precio
         Element priceElement = doc.selectFirst("span.a-price span.a-offscreen");
-        if (priceElement != null) {
-            try {
-                String priceText = priceElement.text().replaceAll("[^\\d.,]", "").replace(',', '.');
-                if (!priceText.isEmpty()) {
-                    return Double.parseDouble(priceText);
-                }
-            } catch (NumberFormatException e) {
-                // No hacer nada, probar el siguiente selector
-            }
-        }
-        return null;
+        return priceElement != null ? PriceParser.US.parseOrNull(priceElement.text()) : null;
+    }
+
+    private String extractCurrency(Document doc) {
+        Element priceElement = doc.selectFirst("span.a-price span.a-offscreen");
+        return priceElement != null ? PriceParser.detectCurrency(priceElement.text()) : null;
     }
 
     private String extractImage(Document doc) {
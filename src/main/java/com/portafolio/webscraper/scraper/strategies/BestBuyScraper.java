@@ -1,7 +1,10 @@
 package com.portafolio.webscraper.scraper.strategies; // Asegúrate de que el paquete sea correcto
 
 import com.portafolio.webscraper.model.ProductInfo;
-import org.jsoup.Jsoup;
+import com.portafolio.webscraper.scraper.PageFetcher;
+import com.portafolio.webscraper.scraper.PriceParser;
+import com.portafolio.webscraper.scraper.StructuredDataExtractor;
+import com.portafolio.webscraper.scraper.StructuredDataExtractor.StructuredProduct;
 import org.jsoup.nodes.Document;
 import org.jsoup.nodes.Element;
 
@@ -9,53 +12,116 @@ import java.io.IOException;
 import java.net.URLEncoder;
 import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
 
 public class BestBuyScraper implements ScraperStrategy {
 
+    private static final Map<String, String> HEADERS = Map.of("User-Agent", PageFetcher.DEFAULT_USER_AGENT);
+
+    // Selectores usados por los métodos de extracción: la página se lee solo hasta encontrarlos todos
+    // (o hasta que los datos estructurados cubran todos los campos).
+    private static final List<String> PRODUCT_PAGE_SELECTORS = List.of(
+            "h1.heading-5.v-fw-regular",
+            ".priceView-hero-price.priceView-customer-price span[aria-hidden=true]",
+            ".primary-image.is-visible",
+            "button.add-to-cart-button",
+            ".ugc-c-review-average",
+            "a.c-reviews-v4 .c-reviews-v4-count"
+    );
+
+    private final PageFetcher fetcher;
+
+    public BestBuyScraper() {
+        this(PageFetcher.getDefault());
+    }
+
+    public BestBuyScraper(PageFetcher fetcher) {
+        this.fetcher = fetcher;
+    }
+
     @Override
-    public ProductInfo scrapeFirstResultFromSearch(String productName) throws ScraperException {
+    public List<SearchHit> searchResults(String productName, int limit) throws ScraperException {
         try {
             String encodedName = URLEncoder.encode(productName, StandardCharsets.UTF_8);
             String searchUrl = "https://www.bestbuy.com/site/searchpage.jsp?st=" + encodedName;
 
-            Document searchPage = Jsoup.connect(searchUrl)
-                    .userAgent("Mozilla/5.0 (Windows NT 10.0; Win64; x64) AppleWebKit/537.36 (KHTML, like Gecko) Chrome/91.0.4472.124 Safari/537.36")
-                    .timeout(15000)
-                    .get();
+            Document searchPage = fetcher.fetchDocument(searchUrl, HEADERS);
 
-            Element firstResultLink = searchPage.selectFirst("li.sku-item h4.sku-title a");
+            List<SearchHit> hits = new ArrayList<>();
+            for (Element resultLink : searchPage.select("li.sku-item h4.sku-title a")) {
+                if (hits.size() >= limit) break;
+                Element card = resultLink.closest("li.sku-item");
+                if (card != null && card.selectFirst(".is-sponsored, .sponsored-label") != null) {
+                    continue;
+                }
+                String productUrl = resultLink.absUrl("href");
+                hits.add(new SearchHit(productUrl, card != null ? extractCard(card, resultLink, productUrl) : null));
+            }
 
-            if (firstResultLink == null) {
+            if (hits.isEmpty()) {
                 throw new ScraperException("No se encontraron resultados de búsqueda para '" + productName + "' en Best Buy.");
             }
-
-            String productUrl = firstResultLink.absUrl("href");
-            return this.scrape(productUrl);
+            return hits;
 
         } catch (IOException e) {
             throw new ScraperException("Error durante la búsqueda en Best Buy para: " + productName, e);
         }
     }
 
+    /**
+     * Construye el producto con los datos de la tarjeta del listado, o null si no tiene título.
+     */
+    private ProductInfo extractCard(Element card, Element titleLink, String productUrl) {
+        if (titleLink.text().isBlank()) {
+            return null;
+        }
+        Element price = card.selectFirst(".priceView-customer-price span[aria-hidden=true]");
+        Element image = card.selectFirst("img.product-image");
+        // "Rating 4.7 out of 5 stars with 1234 reviews"
+        Element rating = card.selectFirst(".c-ratings-reviews p.visually-hidden");
+        Element reviews = card.selectFirst(".c-ratings-reviews .c-reviews");
+        Element button = card.selectFirst("button.add-to-cart-button");
+        String buttonText = button != null ? button.text().toLowerCase() : "";
+        return ProductInfo.builder()
+                .name(titleLink.text().trim())
+                .currentPrice(price != null ? PriceParser.US.parseOrNull(price.text()) : null)
+                .currency(price != null ? PriceParser.detectCurrency(price.text()) : null)
+                .imageUrl(image != null ? image.absUrl("src") : null)
+                .productUrl(productUrl)
+                .storeName("Best Buy")
+                .available(button != null && !buttonText.contains("sold out") && !buttonText.contains("unavailable"))
+                .rating(rating != null ? PriceParser.US.parseOrNull(rating.text()) : null)
+                .reviewCount(reviews != null ? PriceParser.parseCount(reviews.text()) : null)
+                .productId(card.attr("data-sku-id").isEmpty() ? null : card.attr("data-sku-id"))
+                .lastUpdated(LocalDateTime.now())
+                .build();
+    }
+
     @Override
     public ProductInfo scrape(String url) throws ScraperException {
         try {
-            Document doc = Jsoup.connect(url)
-                    .userAgent("Mozilla/5.0 (Windows NT 10.0; Win64; x64) AppleWebKit/537.36 (KHTML, like Gecko) Chrome/91.0.4472.124 Safari/537.36")
-                    .timeout(15000)
-                    .get();
+            // Se deja de leer en cuanto están todos los selectores o los datos estructurados ya bastan
+            StructuredDataExtractor.Collector structured = new StructuredDataExtractor.Collector();
+            Document doc = fetcher.fetchDocumentUntil(url, HEADERS, PRODUCT_PAGE_SELECTORS, structured);
 
             // --- CORRECCIONES EN EL BUILDER ---
+            // Primero los datos estructurados; los selectores CSS solo cubren lo que falte
+            StructuredProduct data = structured.finish(doc);
             return ProductInfo.builder()
-                    .name(extractTitle(doc))
-                    .currentPrice(extractPrice(doc))
-                    .imageUrl(extractImage(doc))
-                    .productUrl(url)                  // ANTES: sourceUrl
+                    .name(data.name() != null ? data.name() : extractTitle(doc))
+                    .currentPrice(data.price() != null ? data.price() : extractPrice(doc))
+                    .currency(data.currency() != null ? data.currency() : extractCurrency(doc))
+                    .imageUrl(data.imageUrl() != null ? data.imageUrl() : extractImage(doc))
+                    .productUrl(url)                      // ANTES: sourceUrl
                     .storeName("Best Buy")              // ANTES: seller
-                    .available(checkAvailability(doc)) // ANTES: inStock
-                    .rating(extractRating(doc))
-                    .reviewCount(extractReviewCount(doc))
-                    .lastUpdated(LocalDateTime.now()) // ANTES: scrapedAt
+                    .available(data.available() != null ? data.available() : checkAvailability(doc))
+                    .rating(data.rating() != null ? data.rating() : extractRating(doc))
+                    .reviewCount(data.reviewCount() != null ? data.reviewCount() : extractReviewCount(doc))
+                    .brand(data.brand())
+                    .productId(data.productId())
+                    .lastUpdated(LocalDateTime.now())     // ANTES: scrapedAt
                     .build();
 
         } catch (Exception e) {
@@ -73,18 +139,16 @@ public class BestBuyScraper implements ScraperStrategy {
     private Double extractPrice(Document doc) {
         Element priceElement = doc.selectFirst(".priceView-hero-price.priceView-customer-price span[aria-hidden=true]");
         if (priceElement != null) {
-            try {
-                String priceText = priceElement.text().replaceAll("[^\\d.]", "");
-                if (!priceText.isEmpty()) {
-                    return Double.parseDouble(priceText);
-                }
-            } catch (NumberFormatException e) {
-                // Ignorar error y retornar null si el parseo falla
-            }
+            return PriceParser.US.parseOrNull(priceElement.text());
         }
         return null; // Devolver null si no se encuentra el precio
     }
 
+    private String extractCurrency(Document doc) {
+        Element priceElement = doc.selectFirst(".priceView-hero-price.priceView-customer-price span[aria-hidden=true]");
+        return priceElement != null ? PriceParser.detectCurrency(priceElement.text()) : null;
+    }
+
     private String extractImage(Document doc) {
         Element imageElement = doc.selectFirst(".primary-image.is-visible");
         return imageElement != null ? imageElement.attr("src") : null;
@@ -1,7 +1,10 @@
 package com.portafolio.webscraper.scraper.strategies;
 
 import com.portafolio.webscraper.model.ProductInfo;
-import org.jsoup.Jsoup;
+import com.portafolio.webscraper.scraper.PageFetcher;
+import com.portafolio.webscraper.scraper.PriceParser;
+import com.portafolio.webscraper.scraper.StructuredDataExtractor;
+import com.portafolio.webscraper.scraper.StructuredDataExtractor.StructuredProduct;
 import org.jsoup.nodes.Document;
 import org.jsoup.nodes.Element;
 
@@ -9,52 +12,111 @@ import java.io.IOException;
 import java.net.URLEncoder;
 import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
 
 public class EbayScraper implements ScraperStrategy {
 
+    private static final Map<String, String> HEADERS = Map.of("User-Agent", PageFetcher.DEFAULT_USER_AGENT);
+
+    // Selectores usados por los métodos de extracción: la página se lee solo hasta encontrarlos todos
+    // (o hasta que los datos estructurados cubran todos los campos).
+    private static final List<String> PRODUCT_PAGE_SELECTORS = List.of(
+            ".x-item-title__mainTitle .ux-textspans--BOLD",
+            ".x-price-primary span.ux-textspans",
+            ".ux-image-carousel-item.active img",
+            "#binBtn_btn, #isCartBtn_btn",
+            "a.ux-anchor[href*='#Reviews'] span.ux-textspans--PSEUDOLINK"
+    );
+
+    private final PageFetcher fetcher;
+
+    public EbayScraper() {
+        this(PageFetcher.getDefault());
+    }
+
+    public EbayScraper(PageFetcher fetcher) {
+        this.fetcher = fetcher;
+    }
+
     @Override
-    public ProductInfo scrapeFirstResultFromSearch(String productName) throws ScraperException {
+    public List<SearchHit> searchResults(String productName, int limit) throws ScraperException {
         try {
             String encodedName = URLEncoder.encode(productName, StandardCharsets.UTF_8);
             String searchUrl = "https://www.ebay.com/sch/i.html?_nkw=" + encodedName;
 
-            Document searchPage = Jsoup.connect(searchUrl)
-                    .userAgent("Mozilla/5.0 (Windows NT 10.0; Win64; x64) AppleWebKit/537.36 (KHTML, like Gecko) Chrome/91.0.4472.124 Safari/537.36")
-                    .timeout(15000)
-                    .get();
+            Document searchPage = fetcher.fetchDocument(searchUrl, HEADERS);
 
-            Element firstResultLink = searchPage.selectFirst("li.s-item .s-item__link");
+            List<SearchHit> hits = new ArrayList<>();
+            for (Element resultLink : searchPage.select("li.s-item .s-item__link")) {
+                if (hits.size() >= limit) break;
+                Element card = resultLink.closest("li.s-item");
+                // Se omiten los anuncios patrocinados y la tarjeta fija "Shop on eBay" del principio
+                if (card != null && (!card.select("span:containsOwn(Sponsored)").isEmpty()
+                        || card.select(".s-item__title").text().equalsIgnoreCase("Shop on eBay"))) {
+                    continue;
+                }
+                String productUrl = resultLink.absUrl("href");
+                hits.add(new SearchHit(productUrl, card != null ? extractCard(card, productUrl) : null));
+            }
 
-            if (firstResultLink == null) {
+            if (hits.isEmpty()) {
                 throw new ScraperException("No se encontraron resultados de búsqueda para '" + productName + "' en eBay.");
             }
-
-            String productUrl = firstResultLink.absUrl("href");
-            return this.scrape(productUrl);
+            return hits;
 
         } catch (IOException e) {
             throw new ScraperException("Error durante la búsqueda en eBay para: " + productName, e);
         }
     }
 
+    /**
+     * Construye el producto con los datos de la tarjeta del listado, o null si no tiene título.
+     */
+    private ProductInfo extractCard(Element card, String productUrl) {
+        Element title = card.selectFirst(".s-item__title");
+        if (title == null || title.text().isBlank()) {
+            return null;
+        }
+        Element price = card.selectFirst(".s-item__price");
+        Element image = card.selectFirst(".s-item__image-wrapper img");
+        Element reviews = card.selectFirst(".s-item__reviews-count span");
+        return ProductInfo.builder()
+                .name(title.text().trim())
+                .currentPrice(price != null ? PriceParser.US.parseOrNull(price.text()) : null)
+                .currency(price != null ? PriceParser.detectCurrency(price.text()) : null)
+                .imageUrl(image != null ? image.absUrl("src") : null)
+                .productUrl(productUrl)
+                .storeName("eBay")
+                .available(true)
+                .reviewCount(reviews != null ? PriceParser.parseCount(reviews.text()) : null)
+                .lastUpdated(LocalDateTime.now())
+                .build();
+    }
+
     @Override
     public ProductInfo scrape(String url) throws ScraperException {
         try {
-            Document doc = Jsoup.connect(url)
-                    .userAgent("Mozilla/5.0 (Windows NT 10.0; Win64; x64) AppleWebKit/537.36 (KHTML, like Gecko) Chrome/91.0.4472.124 Safari/537.36")
-                    .timeout(15000)
-                    .get();
+            // Se deja de leer en cuanto están todos los selectores o los datos estructurados ya bastan
+            StructuredDataExtractor.Collector structured = new StructuredDataExtractor.Collector();
+            Document doc = fetcher.fetchDocumentUntil(url, HEADERS, PRODUCT_PAGE_SELECTORS, structured);
 
             // --- CORRECCIONES EN EL BUILDER ---
+            // Primero los datos estructurados; los selectores CSS solo cubren lo que falte
+            StructuredProduct data = structured.finish(doc);
             return ProductInfo.builder()
-                    .name(extractTitle(doc))
-                    .currentPrice(extractPrice(doc))
-                    .imageUrl(extractImage(doc))
+                    .name(data.name() != null ? data.name() : extractTitle(doc))
+                    .currentPrice(data.price() != null ? data.price() : extractPrice(doc))
+                    .currency(data.currency() != null ? data.currency() : extractCurrency(doc))
+                    .imageUrl(data.imageUrl() != null ? data.imageUrl() : extractImage(doc))
                     .productUrl(url)                      // ANTES: sourceUrl
                     .storeName("eBay")                    // ANTES: seller(extractSeller(doc))
-                    .available(checkAvailability(doc))    // ANTES: inStock
-                    .rating(extractRating(doc))
-                    .reviewCount(extractReviewCount(doc))
+                    .available(data.available() != null ? data.available() : checkAvailability(doc))
+                    .rating(data.rating() != null ? data.rating() : extractRating(doc))
+                    .reviewCount(data.reviewCount() != null ? data.reviewCount() : extractReviewCount(doc))
+                    .brand(data.brand())
+                    .productId(data.productId())
                     .lastUpdated(LocalDateTime.now())     // ANTES: scrapedAt
                     .build();
 
@@ -73,18 +135,16 @@ public class EbayScraper implements ScraperStrategy {
     private Double extractPrice(Document doc) {
         Element priceElement = doc.selectFirst(".x-price-primary span.ux-textspans");
         if (priceElement != null) {
-            try {
-                String priceText = priceElement.text().replaceAll("[^\\d.]", "");
-                if (!priceText.isEmpty()) {
-                    return Double.parseDouble(priceText);
-                }
-            } catch (NumberFormatException e) {
-                // Ignorar error y retornar null
-            }
+            return PriceParser.US.parseOrNull(priceElement.text());
         }
         return null;
     }
 
+    private String extractCurrency(Document doc) {
+        Element priceElement = doc.selectFirst(".x-price-primary span.ux-textspans");
+        return priceElement != null ? PriceParser.detectCurrency(priceElement.text()) : null;
+    }
+
     private String extractImage(Document doc) {
         Element imageElement = doc.selectFirst(".ux-image-carousel-item.active img");
         return imageElement != null ? imageElement.attr("src") : null;
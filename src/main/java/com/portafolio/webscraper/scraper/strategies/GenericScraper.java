@@ -1,39 +1,61 @@
 package com.portafolio.webscraper.scraper.strategies;
 
 import com.portafolio.webscraper.model.ProductInfo;
-import org.jsoup.Jsoup;
+import com.portafolio.webscraper.scraper.PageFetcher;
+import com.portafolio.webscraper.scraper.PriceParser;
+import com.portafolio.webscraper.scraper.StructuredDataExtractor;
+import com.portafolio.webscraper.scraper.StructuredDataExtractor.StructuredProduct;
 import org.jsoup.nodes.Document;
 import org.jsoup.nodes.Element;
 
 import java.io.IOException;
 import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
 public class GenericScraper implements ScraperStrategy {
 
+    private static final Map<String, String> HEADERS = Map.of(
+            "User-Agent", PageFetcher.DEFAULT_USER_AGENT,
+            "Referer", "https://www.google.com"
+    );
+
+    private final PageFetcher fetcher;
+
+    public GenericScraper() {
+        this(PageFetcher.getDefault());
+    }
+
+    public GenericScraper(PageFetcher fetcher) {
+        this.fetcher = fetcher;
+    }
+
     @Override
-    public ProductInfo scrapeFirstResultFromSearch(String productName) throws ScraperException {
+    public List<SearchHit> searchResults(String productName, int limit) throws ScraperException {
         throw new ScraperException("La búsqueda por nombre no es compatible con el scraper genérico. Se requiere una URL de producto directa.");
     }
 
     @Override
     public ProductInfo scrape(String url) throws ScraperException {
         try {
-            Document doc = Jsoup.connect(url)
-                    .userAgent("Mozilla/5.0 (Windows NT 10.0; Win64; x64) AppleWebKit/537.36 (KHTML, like Gecko) Chrome/91.0.4472.124 Safari/537.36")
-                    .referrer("https://www.google.com")
-                    .timeout(15000)
-                    .get();
+            Document doc = fetcher.fetchDocument(url, HEADERS);
 
-            // --- CORRECCIONES EN EL BUILDER ---
+            // JSON-LD / estado embebido / OpenGraph antes que la heurística sobre el HTML
+            StructuredProduct data = StructuredDataExtractor.extract(doc);
             return ProductInfo.builder()
-                    .name(extractMeta(doc, "og:title", "title"))
-                    .currentPrice(extractPrice(doc))
-                    .imageUrl(extractMeta(doc, "og:image"))
+                    .name(data.name() != null ? data.name() : extractMeta(doc, "og:title", "title"))
+                    .currentPrice(data.price() != null ? data.price() : extractPrice(doc))
+                    .currency(data.currency() != null ? data.currency() : extractCurrency(doc))
+                    .imageUrl(data.imageUrl() != null ? data.imageUrl() : extractMeta(doc, "og:image"))
                     .productUrl(url)                          // ANTES: sourceUrl
                     .storeName(extractStoreNameFromUrl(url))  // ANTES: seller
-                    .available(checkAvailability(doc))        // ANTES: inStock
+                    .available(data.available() != null ? data.available() : checkAvailability(doc))
+                    .rating(data.rating())
+                    .reviewCount(data.reviewCount())
+                    .brand(data.brand())
+                    .productId(data.productId())
                     .lastUpdated(LocalDateTime.now())         // ANTES: scrapedAt
                     .build();
 
@@ -56,6 +78,17 @@ public class GenericScraper implements ScraperStrategy {
         return null;
     }
 
+    private String extractCurrency(Document doc) {
+        Element currency = doc.selectFirst("[itemprop=priceCurrency]");
+        if (currency != null) {
+            String code = currency.hasAttr("content") ? currency.attr("content") : currency.text();
+            String symbol = PriceParser.detectCurrency(code);
+            if (symbol != null) return symbol;
+        }
+        Element price = doc.selectFirst("[itemprop=price], .price");
+        return price != null ? PriceParser.detectCurrency(price.text()) : null;
+    }
+
     private Double extractPrice(Document doc) {
         String[] priceSelectors = {
                 "meta[property='og:price:amount']",
@@ -67,16 +100,12 @@ public class GenericScraper implements ScraperStrategy {
         for (String selector : priceSelectors) {
             Element priceElement = doc.selectFirst(selector);
             if (priceElement != null) {
-                try {
-                    String priceText = priceElement.tagName().equals("meta")
-                            ? priceElement.attr("content")
-                            : priceElement.text();
-                    priceText = priceText.replaceAll("[^\\d.,]", "").replace(',', '.').trim();
-                    if (!priceText.isEmpty()) {
-                        return Double.parseDouble(priceText);
-                    }
-                } catch (NumberFormatException e) {
-                    // Ignorar y probar el siguiente
+                String priceText = priceElement.tagName().equals("meta")
+                        ? priceElement.attr("content")
+                        : priceElement.text();
+                Double price = PriceParser.US.parseOrNull(priceText);
+                if (price != null) {
+                    return price;
                 }
             }
         }
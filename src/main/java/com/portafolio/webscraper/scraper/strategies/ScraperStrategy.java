@@ -2,9 +2,144 @@ package com.portafolio.webscraper.scraper.strategies;
 
 import com.portafolio.webscraper.model.ProductInfo;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.function.IntConsumer;
+
 public interface ScraperStrategy {
+
+    /**
+     * Cómo se obtiene el producto a partir de la página de búsqueda.
+     */
+    enum SearchMode {
+        /** Se construye con la tarjeta del listado; la ficha solo se visita si faltan campos. */
+        CARD_ONLY,
+        /** Se visita siempre la ficha del primer resultado. */
+        PRODUCT_PAGE
+    }
+
     ProductInfo scrape(String url) throws ScraperException;
-    ProductInfo scrapeFirstResultFromSearch(String productName) throws ScraperException;
+
+    /**
+     * Cómo se obtiene la ficha de un resultado. Por defecto es {@link #scrape(String)}, pero
+     * {@code ProductScraper} pasa la suya para que las fichas de las búsquedas también pasen por la
+     * caché de productos y compartan descarga con las peticiones concurrentes de la misma URL.
+     */
+    @FunctionalInterface
+    interface ProductPageLoader {
+        ProductInfo load(String productUrl) throws ScraperException;
+    }
+
+    /**
+     * Resultado orgánico de una búsqueda: URL de la ficha y lo que se pudo leer de su tarjeta
+     * en el listado ({@code card} es null si la tarjeta no tenía ni título).
+     */
+    record SearchHit(String productUrl, ProductInfo card) {
+    }
+
+    /**
+     * Devuelve como mucho {@code limit} resultados orgánicos (sin patrocinados), en el orden de la tienda.
+     * Lanza {@link ScraperException} sin causa si la búsqueda no tiene resultados.
+     */
+    List<SearchHit> searchResults(String productName, int limit) throws ScraperException;
+
+    default ProductInfo scrapeFirstResultFromSearch(String productName) throws ScraperException {
+        return scrapeFirstResultFromSearch(productName, SearchMode.CARD_ONLY);
+    }
+
+    default ProductInfo scrapeFirstResultFromSearch(String productName, SearchMode mode) throws ScraperException {
+        return scrapeFirstResultFromSearch(productName, mode, this::scrape);
+    }
+
+    default ProductInfo scrapeFirstResultFromSearch(String productName, SearchMode mode, ProductPageLoader pageLoader)
+            throws ScraperException {
+        SearchHit first = searchResults(productName, 1).get(0);
+        return completeFromProductPage(first.productUrl(), first.card(), mode, pageLoader);
+    }
+
+    /**
+     * Devuelve los {@code limit} primeros resultados orgánicos ya completados. Las fichas que haga falta
+     * descargar se reparten en como mucho {@code maxParallelDetails} tareas: la primera corre en el hilo
+     * actual y el resto en {@code detailExecutor}, y cada una se obtiene con {@code pageLoader}. Los
+     * resultados que no se puedan completar se omiten; si fallan todos se relanza el primer error.
+     */
+    default List<ProductInfo> scrapeTopResultsFromSearch(String productName, int limit, SearchMode mode,
+                                                         Executor detailExecutor, int maxParallelDetails,
+                                                         ProductPageLoader pageLoader)
+            throws ScraperException {
+        List<SearchHit> hits = searchResults(productName, limit);
+        int total = hits.size();
+        int lanes = Math.max(1, Math.min(maxParallelDetails, total));
+        ProductInfo[] products = new ProductInfo[total];
+        ScraperException[] errors = new ScraperException[total];
+
+        // Cada tarea completa los resultados lane, lane + lanes, lane + 2 * lanes...
+        IntConsumer lane = first -> {
+            for (int i = first; i < total; i += lanes) {
+                SearchHit hit = hits.get(i);
+                try {
+                    products[i] = completeFromProductPage(hit.productUrl(), hit.card(), mode, pageLoader);
+                } catch (ScraperException e) {
+                    errors[i] = e;
+                }
+            }
+        };
+        CompletableFuture<?>[] others = new CompletableFuture<?>[lanes - 1];
+        for (int l = 1; l < lanes; l++) {
+            int first = l;
+            others[l - 1] = CompletableFuture.runAsync(() -> lane.accept(first), detailExecutor);
+        }
+        lane.accept(0);
+        CompletableFuture.allOf(others).join();
+
+        List<ProductInfo> results = new ArrayList<>(total);
+        for (ProductInfo product : products) {
+            if (product != null) results.add(product);
+        }
+        if (results.isEmpty()) {
+            for (ScraperException error : errors) {
+                if (error != null) throw error;
+            }
+        }
+        return results;
+    }
+
+    /**
+     * Resuelve un resultado de una búsqueda. {@code card} es lo extraído de la tarjeta del listado
+     * (null si ni siquiera tenía título). La ficha del producto se descarga solo cuando hace falta, y sus
+     * campos tienen prioridad sobre los de la tarjeta; si esa descarga falla pero la tarjeta ya tiene
+     * nombre y precio, se devuelve la tarjeta.
+     */
+    default ProductInfo completeFromProductPage(String productUrl, ProductInfo card, SearchMode mode,
+                                                ProductPageLoader pageLoader) throws ScraperException {
+        if (card != null && mode == SearchMode.CARD_ONLY
+                && card.getCurrentPrice() != null && card.getImageUrl() != null) {
+            return card;
+        }
+        ProductInfo page;
+        try {
+            page = pageLoader.load(productUrl);
+        } catch (ScraperException e) {
+            if (card != null && card.getCurrentPrice() != null) {
+                return card;
+            }
+            throw e;
+        }
+        // La ficha puede ser la misma instancia que reciben otras búsquedas concurrentes: se completa una copia
+        return card == null ? page : fillMissing(page.toBuilder().build(), card);
+    }
+
+    private static ProductInfo fillMissing(ProductInfo page, ProductInfo card) {
+        if ("No title found".equals(page.getName())) page.setName(card.getName());
+        if (page.getCurrentPrice() == null) page.setCurrentPrice(card.getCurrentPrice());
+        if (page.getCurrency() == null) page.setCurrency(card.getCurrency());
+        if (page.getImageUrl() == null || page.getImageUrl().isEmpty()) page.setImageUrl(card.getImageUrl());
+        if (page.getRating() == null) page.setRating(card.getRating());
+        if (page.getReviewCount() == null) page.setReviewCount(card.getReviewCount());
+        return page;
+    }
 
     // Definición de la excepción como clase interna
     class ScraperException extends Exception {
@@ -16,4 +151,4 @@ public interface ScraperStrategy {
             super(message, cause);
         }
     }
-}
\ No newline at end of file
+}
@@ -1,64 +1,137 @@
 package com.portafolio.webscraper.scraper.strategies;
 
 import com.portafolio.webscraper.model.ProductInfo;
-import org.jsoup.Jsoup;
+import com.portafolio.webscraper.scraper.PageFetcher;
+import com.portafolio.webscraper.scraper.PriceParser;
+import com.portafolio.webscraper.scraper.StructuredDataExtractor;
+import com.portafolio.webscraper.scraper.StructuredDataExtractor.StructuredProduct;
 import org.jsoup.nodes.Document;
 import org.jsoup.nodes.Element;
+import org.jsoup.select.Elements;
 
 import java.io.IOException;
 import java.net.URLEncoder;
 import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 public class WalmartScraper implements ScraperStrategy {
 
+    private static final Map<String, String> HEADERS = Map.of("User-Agent", PageFetcher.DEFAULT_USER_AGENT);
+
+    // Selectores usados por los métodos de extracción: la página se lee solo hasta encontrarlos todos
+    // (o hasta que los datos estructurados cubran todos los campos).
+    private static final List<String> PRODUCT_PAGE_SELECTORS = List.of(
+            "h1[itemprop=name]",
+            "div[data-testid=product-buy-box] span[itemprop=price]",
+            "div[data-testid=media-thumbnail-container] img",
+            "button[data-testid=add-to-cart-section-button]",
+            "span.f7.mr1.b.black",
+            "a[href='#reviews']"
+    );
+
+    private final PageFetcher fetcher;
+
+    public WalmartScraper() {
+        this(PageFetcher.getDefault());
+    }
+
+    public WalmartScraper(PageFetcher fetcher) {
+        this.fetcher = fetcher;
+    }
+
     @Override
-    public ProductInfo scrapeFirstResultFromSearch(String productName) throws ScraperException {
+    public List<SearchHit> searchResults(String productName, int limit) throws ScraperException {
         try {
             String encodedName = URLEncoder.encode(productName, StandardCharsets.UTF_8);
             String searchUrl = "https://www.walmart.com/search?q=" + encodedName;
 
-            Document searchPage = Jsoup.connect(searchUrl)
-                    .userAgent("Mozilla/5.0 (Windows NT 10.0; Win64; x64) AppleWebKit/537.36 (KHTML, like Gecko) Chrome/91.0.4472.124 Safari/537.36")
-                    .timeout(15000)
-                    .get();
+            Document searchPage = fetcher.fetchDocument(searchUrl, HEADERS);
 
-            Element firstResultLink = searchPage.selectFirst("a[data-testid=product-title-link]");
+            Elements resultLinks = searchPage.select("a[data-testid=product-title-link]");
 
-            if (firstResultLink == null) {
-                firstResultLink = searchPage.selectFirst("div[data-item-id] a");
+            if (resultLinks.isEmpty()) {
+                resultLinks = searchPage.select("div[data-item-id] a");
             }
 
-            if (firstResultLink == null) {
-                throw new ScraperException("No se encontraron resultados de búsqueda para '" + productName + "' en Walmart.");
+            List<SearchHit> hits = new ArrayList<>();
+            Set<String> seenUrls = new HashSet<>();
+            for (Element resultLink : resultLinks) {
+                if (hits.size() >= limit) break;
+                String productUrl = resultLink.absUrl("href");
+                // Una misma tarjeta puede tener varios enlaces al producto
+                if (productUrl.isEmpty() || !seenUrls.add(productUrl)) continue;
+                Element card = resultLink.closest("div[data-item-id]");
+                if (card != null && !card.select("div:containsOwn(Sponsored), span:containsOwn(Sponsored)").isEmpty()) {
+                    continue;
+                }
+                hits.add(new SearchHit(productUrl, card != null ? extractCard(card, productUrl) : null));
             }
 
-            String productUrl = firstResultLink.absUrl("href");
-            return this.scrape(productUrl);
+            if (hits.isEmpty()) {
+                throw new ScraperException("No se encontraron resultados de búsqueda para '" + productName + "' en Walmart.");
+            }
+            return hits;
 
         } catch (IOException e) {
             throw new ScraperException("Error durante la búsqueda en Walmart para: " + productName, e);
         }
     }
 
+    /**
+     * Construye el producto con los datos de la tarjeta del listado, o null si no tiene título.
+     */
+    private ProductInfo extractCard(Element card, String productUrl) {
+        Element title = card.selectFirst("span[data-automation-id=product-title]");
+        if (title == null || title.text().isBlank()) {
+            return null;
+        }
+        // El bloque de precio empieza con el precio actual ("current price $12.34 ...")
+        Element price = card.selectFirst("div[data-automation-id=product-price]");
+        Element image = card.selectFirst("img[data-testid=productTileImage]");
+        Element rating = card.selectFirst("span[data-testid=product-ratings]");
+        Element reviews = card.selectFirst("span[data-testid=product-reviews]");
+        return ProductInfo.builder()
+                .name(title.text().trim())
+                .currentPrice(price != null ? PriceParser.US.parseOrNull(price.text()) : null)
+                .currency(price != null ? PriceParser.detectCurrency(price.text()) : null)
+                .imageUrl(image != null ? image.absUrl("src") : null)
+                .productUrl(productUrl)
+                .storeName("Walmart")
+                .available(!card.text().contains("Out of stock"))
+                .rating(rating != null ? PriceParser.US.parseOrNull(rating.attr("data-value")) : null)
+                .reviewCount(reviews != null ? PriceParser.parseCount(reviews.attr("data-value")) : null)
+                .productId(card.attr("data-item-id").isEmpty() ? null : card.attr("data-item-id"))
+                .lastUpdated(LocalDateTime.now())
+                .build();
+    }
+
     @Override
     public ProductInfo scrape(String url) throws ScraperException {
         try {
-            Document doc = Jsoup.connect(url)
-                    .userAgent("Mozilla/5.0 (Windows NT 10.0; Win64; x64) AppleWebKit/537.36 (KHTML, like Gecko) Chrome/91.0.4472.124 Safari/537.36")
-                    .timeout(15000)
-                    .get();
+            // Se deja de leer en cuanto están todos los selectores o los datos estructurados ya bastan
+            StructuredDataExtractor.Collector structured = new StructuredDataExtractor.Collector();
+            Document doc = fetcher.fetchDocumentUntil(url, HEADERS, PRODUCT_PAGE_SELECTORS, structured);
 
             // --- CORRECCIONES EN EL BUILDER ---
+            // Primero los datos estructurados; los selectores CSS solo cubren lo que falte
+            StructuredProduct data = structured.finish(doc);
             return ProductInfo.builder()
-                    .name(extractTitle(doc))
-                    .currentPrice(extractPrice(doc))
-                    .imageUrl(extractImage(doc))
+                    .name(data.name() != null ? data.name() : extractTitle(doc))
+                    .currentPrice(data.price() != null ? data.price() : extractPrice(doc))
+                    .currency(data.currency() != null ? data.currency() : extractCurrency(doc))
+                    .imageUrl(data.imageUrl() != null ? data.imageUrl() : extractImage(doc))
                     .productUrl(url)                      // ANTES: sourceUrl
                     .storeName("Walmart")                 // ANTES: seller
-                    .available(checkAvailability(doc))    // ANTES: inStock
-                    .rating(extractRating(doc))
-                    .reviewCount(extractReviewCount(doc))
+                    .available(data.available() != null ? data.available() : checkAvailability(doc))
+                    .rating(data.rating() != null ? data.rating() : extractRating(doc))
+                    .reviewCount(data.reviewCount() != null ? data.reviewCount() : extractReviewCount(doc))
+                    .brand(data.brand())
+                    .productId(data.productId())
                     .lastUpdated(LocalDateTime.now())     // ANTES: scrapedAt
                     .build();
 
@@ -77,18 +150,16 @@ public class WalmartScraper implements ScraperStrategy {
     private Double extractPrice(Document doc) {
         Element priceElement = doc.selectFirst("div[data-testid=product-buy-box] span[itemprop=price]");
         if (priceElement != null) {
-            try {
-                String priceText = priceElement.attr("content");
-                if (!priceText.isEmpty()) {
-                    return Double.parseDouble(priceText);
-                }
-            } catch (NumberFormatException e) {
-                // Ignorar error
-            }
+            return PriceParser.US.parseOrNull(priceElement.attr("content"));
         }
         return null;
     }
 
+    private String extractCurrency(Document doc) {
+        Element priceElement = doc.selectFirst("div[data-testid=product-buy-box] span[itemprop=price]");
+        return priceElement != null ? PriceParser.detectCurrency(priceElement.text()) : null;
+    }
+
     private String extractImage(Document doc) {
         Element imageElement = doc.selectFirst("div[data-testid=media-thumbnail-container] img");
         return imageElement != null ? imageElement.attr("src") : null;
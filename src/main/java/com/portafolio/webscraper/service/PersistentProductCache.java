@@ -0,0 +1,234 @@
+package com.portafolio.webscraper.service;
+
+import com.portafolio.webscraper.model.CachedProduct;
+import com.portafolio.webscraper.model.CachedSearch;
+import com.portafolio.webscraper.model.ProductInfo;
+import com.portafolio.webscraper.repository.CachedProductRepository;
+import com.portafolio.webscraper.repository.CachedSearchRepository;
+import com.portafolio.webscraper.scraper.ProductCache;
+import com.portafolio.webscraper.scraper.ProductUrls;
+import com.portafolio.webscraper.services.StatsService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Segundo nivel de caché, en H2 y por tanto persistente entre reinicios.
+ * Guarda cada producto por su URL canónica y, por cada término de búsqueda, la lista de URLs que devolvió,
+ * de modo que tras un despliegue se pueden servir búsquedas sin volver a las tiendas.
+ * <p>
+ * La vigencia de un producto parte del TTL de su tienda y se acorta con su volatilidad:
+ * un producto cuyo precio cambia en cada observación caduca en la cuarta parte del tiempo.
+ * Solo se reescribe un producto si lo que llega es más reciente que lo guardado ({@code lastUpdated}
+ * posterior a la fecha de la copia): un producto servido desde esta misma caché no renueva su vigencia
+ * ni cuenta como observación.
+ * Los productos caducados se conservan {@code retention-days} para no perder su historial de cambios.
+ * Un fallo de la base de datos nunca interrumpe el scraping: se registra y se trata como un fallo de caché.
+ */
+@Service
+public class PersistentProductCache implements ProductCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(PersistentProductCache.class);
+    private static final double MAX_VOLATILITY_REDUCTION = 0.75;
+
+    /**
+     * Vigencia de una búsqueda guardada: caduca con su primer producto y es tan volátil como el más volátil.
+     */
+    public record SearchFreshness(Instant expiresAt, double volatility) {
+    }
+
+    /**
+     * Productos de una búsqueda guardada y cuándo se obtuvieron de las tiendas.
+     */
+    public record StoredSearch(List<ProductInfo> products, Instant storedAt) {
+    }
+
+    private final CachedProductRepository productRepository;
+    private final CachedSearchRepository searchRepository;
+    private final Map<String, Long> storeTtlMinutes;
+    private final Duration defaultTtl;
+    private final Duration retention;
+
+    public PersistentProductCache(CachedProductRepository productRepository,
+                                  CachedSearchRepository searchRepository,
+                                  @Value("#{${scraper.product-cache.store-ttl-minutes:{'Amazon':60,'eBay':30,'Walmart':120,'Best Buy':180}}}")
+                                  Map<String, Long> storeTtlMinutes,
+                                  @Value("${scraper.product-cache.default-ttl-minutes:240}") long defaultTtlMinutes,
+                                  @Value("${scraper.product-cache.retention-days:7}") long retentionDays) {
+        this.productRepository = productRepository;
+        this.searchRepository = searchRepository;
+        this.storeTtlMinutes = Map.copyOf(storeTtlMinutes);
+        this.defaultTtl = Duration.ofMinutes(defaultTtlMinutes);
+        this.retention = Duration.ofDays(retentionDays);
+    }
+
+    @Override
+    public Optional<ProductInfo> find(String productUrl) {
+        try {
+            Instant now = Instant.now();
+            return productRepository.findById(ProductUrls.canonicalize(productUrl))
+                    .filter(entry -> entry.getExpiresAt().isAfter(now))
+                    .map(CachedProduct::toProductInfo);
+        } catch (DataAccessException e) {
+            logger.warn("Caché de productos no disponible: {}", e.getMessage());
+            return Optional.empty();
+        }
+    }
+
+    @Override
+    public void save(ProductInfo product) {
+        try {
+            saveAll(List.of(product));
+        } catch (DataAccessException e) {
+            logger.warn("No se pudo guardar el producto en caché: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Devuelve los productos de la última búsqueda del término, en el mismo orden,
+     * solo si ninguno ha caducado.
+     */
+    public Optional<StoredSearch> findSearch(String term) {
+        try {
+            Optional<CachedSearch> search = searchRepository.findById(StatsService.normalizeTerm(term));
+            if (search.isEmpty()) {
+                return Optional.empty();
+            }
+            List<String> urls = List.of(search.get().getProductUrls().split("\n"));
+            Map<String, CachedProduct> entries = productRepository.findAllById(urls).stream()
+                    .collect(Collectors.toMap(CachedProduct::getCanonicalUrl, Function.identity()));
+            Instant now = Instant.now();
+            List<ProductInfo> products = new ArrayList<>(urls.size());
+            for (String url : urls) {
+                CachedProduct entry = entries.get(url);
+                if (entry == null || !entry.getExpiresAt().isAfter(now)) {
+                    return Optional.empty();
+                }
+                products.add(entry.toProductInfo());
+            }
+            return Optional.of(new StoredSearch(products, search.get().getStoredAt()));
+        } catch (DataAccessException e) {
+            logger.warn("Caché de búsquedas no disponible: {}", e.getMessage());
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Vigencia de la última búsqueda guardada del término, aunque ya haya caducado.
+     */
+    public Optional<SearchFreshness> findSearchFreshness(String term) {
+        try {
+            Optional<CachedSearch> search = searchRepository.findById(StatsService.normalizeTerm(term));
+            if (search.isEmpty()) {
+                return Optional.empty();
+            }
+            List<CachedProduct> entries = productRepository.findAllById(List.of(search.get().getProductUrls().split("\n")));
+            if (entries.isEmpty()) {
+                return Optional.empty();
+            }
+            Instant expiresAt = Instant.MAX;
+            double volatility = 0;
+            for (CachedProduct entry : entries) {
+                if (entry.getExpiresAt().isBefore(expiresAt)) expiresAt = entry.getExpiresAt();
+                volatility = Math.max(volatility, entry.getVolatility());
+            }
+            return Optional.of(new SearchFreshness(expiresAt, volatility));
+        } catch (DataAccessException e) {
+            logger.warn("Caché de búsquedas no disponible: {}", e.getMessage());
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Guarda los productos de una búsqueda y la lista de sus URLs para el término. La búsqueda se fecha
+     * con su producto obtenido hace más tiempo.
+     */
+    public void saveSearch(String term, List<ProductInfo> products) {
+        if (products.isEmpty()) {
+            return;
+        }
+        try {
+            List<String> urls = saveAll(products);
+            Instant now = Instant.now();
+            Instant oldest = now;
+            for (ProductInfo product : products) {
+                Instant observed = observedAt(product, now);
+                if (observed.isBefore(oldest)) oldest = observed;
+            }
+            CachedSearch search = new CachedSearch();
+            search.setTerm(StatsService.normalizeTerm(term));
+            search.setProductUrls(String.join("\n", urls));
+            search.setStoredAt(oldest);
+            searchRepository.save(search);
+        } catch (DataAccessException e) {
+            logger.warn("No se pudo guardar la búsqueda '{}' en caché: {}", term, e.getMessage());
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${scraper.product-cache.purge-interval-ms:3600000}")
+    @Transactional
+    public void purgeExpired() {
+        Instant cutoff = Instant.now().minus(retention);
+        int products = productRepository.deleteExpiredBefore(cutoff);
+        int searches = searchRepository.deleteStoredBefore(cutoff);
+        if (products + searches > 0) {
+            logger.info("Caché persistente: {} productos y {} búsquedas eliminados", products, searches);
+        }
+    }
+
+    private List<String> saveAll(List<ProductInfo> products) {
+        Map<String, ProductInfo> byUrl = new LinkedHashMap<>();
+        for (ProductInfo product : products) {
+            if (product.getProductUrl() != null) {
+                byUrl.put(ProductUrls.canonicalize(product.getProductUrl()), product);
+            }
+        }
+        Map<String, CachedProduct> existing = productRepository.findAllById(byUrl.keySet()).stream()
+                .collect(Collectors.toMap(CachedProduct::getCanonicalUrl, Function.identity()));
+        Instant now = Instant.now();
+        List<CachedProduct> entries = new ArrayList<>(byUrl.size());
+        byUrl.forEach((url, product) -> {
+            CachedProduct entry = existing.get(url);
+            if (entry == null) {
+                entry = new CachedProduct();
+                entry.setCanonicalUrl(url);
+            } else if (!observedAt(product, now).isAfter(entry.getStoredAt())) {
+                // Es la copia guardada (o una anterior): ni renueva la vigencia ni es una observación nueva
+                return;
+            }
+            entry.update(product, now);
+            entry.setExpiresAt(now.plus(ttlFor(entry)));
+            entries.add(entry);
+        });
+        productRepository.saveAll(entries);
+        return new ArrayList<>(byUrl.keySet());
+    }
+
+    private static Instant observedAt(ProductInfo product, Instant now) {
+        return product.getLastUpdated() != null
+                ? product.getLastUpdated().atZone(ZoneId.systemDefault()).toInstant()
+                : now;
+    }
+
+    private Duration ttlFor(CachedProduct entry) {
+        Long minutes = storeTtlMinutes.get(entry.getStoreName());
+        Duration base = minutes != null ? Duration.ofMinutes(minutes) : defaultTtl;
+        double factor = 1 - MAX_VOLATILITY_REDUCTION * entry.getVolatility();
+        return Duration.ofMillis((long) (base.toMillis() * factor));
+    }
+}
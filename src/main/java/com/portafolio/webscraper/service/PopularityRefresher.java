@@ -0,0 +1,197 @@
+package com.portafolio.webscraper.service;
+
+import com.portafolio.webscraper.scraper.ProductScraper;
+import com.portafolio.webscraper.services.StatsService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Mantiene frescas en caché las búsquedas más populares para que la mayoría de peticiones no tenga que
+ * esperar a las tiendas.
+ * <p>
+ * En cada pasada toma los términos más buscados recientemente según {@link StatsService}, descarta los
+ * que siguen vigentes en la caché persistente durante más de {@code lead-seconds} y ordena el resto por
+ * número de búsquedas ponderado por la volatilidad de precio de sus productos y por su crecimiento en la
+ * última hora ({@link StatsService#getTrending}). Los refresca en
+ * {@code taskExecutor} mientras quede presupuesto: un cubo de peticiones salientes que se rellena a
+ * {@code requests-per-hour} y en el que cada búsqueda consume una estimación de las descargas que hace.
+ */
+@Service
+public class PopularityRefresher {
+
+    private static final Logger logger = LoggerFactory.getLogger(PopularityRefresher.class);
+    // Un producto cuyo precio cambia en cada observación pesa el cuádruple que uno estable
+    private static final double VOLATILITY_WEIGHT = 3.0;
+
+    public record RefresherStats(long runs, long refreshed, long failed, long skippedFresh,
+                                 long deferredByBudget, int inFlight, double budgetRequests) {
+    }
+
+    private record Candidate(String term, double score) {
+    }
+
+    private final StatsService statsService;
+    private final PersistentProductCache productCache;
+    private final ScraperService scraperService;
+    private final ProductScraper productScraper;
+    private final Executor taskExecutor;
+    private final boolean enabled;
+    private final int candidates;
+    private final Duration maxIdle;
+    private final Duration lead;
+    private final double requestsPerMilli;
+    private final double maxBudget;
+    private final int maxConcurrent;
+    private final int detailPagesPerStore;
+
+    private final Set<String> refreshing = ConcurrentHashMap.newKeySet();
+    // Solo lo modifica el hilo del planificador
+    private volatile double budget;
+    private long lastRefillMillis;
+
+    private final LongAdder runs = new LongAdder();
+    private final LongAdder refreshed = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final LongAdder skippedFresh = new LongAdder();
+    private final LongAdder deferredByBudget = new LongAdder();
+
+    public PopularityRefresher(StatsService statsService, PersistentProductCache productCache,
+                               ScraperService scraperService, ProductScraper productScraper,
+                               @Qualifier("taskExecutor") Executor taskExecutor,
+                               @Value("${scraper.refresh.enabled:true}") boolean enabled,
+                               @Value("${scraper.refresh.candidates:50}") int candidates,
+                               @Value("${scraper.refresh.max-idle-hours:24}") long maxIdleHours,
+                               @Value("${scraper.refresh.lead-seconds:120}") long leadSeconds,
+                               @Value("${scraper.refresh.requests-per-hour:600}") double requestsPerHour,
+                               @Value("${scraper.refresh.max-concurrent:2}") int maxConcurrent,
+                               @Value("${scraper.search.mode:card-only}") String searchMode,
+                               @Value("${scraper.search.results-per-store:3}") int resultsPerStore) {
+        this.statsService = statsService;
+        this.productCache = productCache;
+        this.scraperService = scraperService;
+        this.productScraper = productScraper;
+        this.taskExecutor = taskExecutor;
+        this.enabled = enabled;
+        this.candidates = candidates;
+        this.maxIdle = Duration.ofHours(maxIdleHours);
+        this.lead = Duration.ofSeconds(leadSeconds);
+        this.requestsPerMilli = requestsPerHour / Duration.ofHours(1).toMillis();
+        // Como mucho se acumula el presupuesto de un cuarto de hora
+        this.maxBudget = requestsPerHour / 4;
+        this.maxConcurrent = maxConcurrent;
+        this.detailPagesPerStore = "product-page".equalsIgnoreCase(searchMode) ? resultsPerStore : 0;
+        this.lastRefillMillis = System.currentTimeMillis();
+    }
+
+    @Scheduled(initialDelayString = "${scraper.refresh.initial-delay-ms:60000}",
+            fixedDelayString = "${scraper.refresh.interval-ms:60000}")
+    public void refreshPopular() {
+        if (!enabled) {
+            return;
+        }
+        runs.increment();
+        refill();
+        double cost = estimatedRequestsPerSearch();
+        for (Candidate candidate : rankCandidates()) {
+            if (refreshing.size() >= maxConcurrent) {
+                break;
+            }
+            if (budget < cost) {
+                deferredByBudget.increment();
+                break;
+            }
+            if (launch(candidate.term())) {
+                budget -= cost;
+            }
+        }
+    }
+
+    public RefresherStats getStats() {
+        return new RefresherStats(runs.sum(), refreshed.sum(), failed.sum(), skippedFresh.sum(),
+                deferredByBudget.sum(), refreshing.size(), budget);
+    }
+
+    /**
+     * Términos buscados en las últimas {@code max-idle-hours} cuya caché caduca pronto (o ya caducó),
+     * de mayor a menor prioridad.
+     */
+    private List<Candidate> rankCandidates() {
+        LocalDateTime idleCutoff = LocalDateTime.now().minus(maxIdle);
+        Instant staleCutoff = Instant.now().plus(lead);
+        Map<String, Double> growth = new HashMap<>();
+        statsService.getTrending(StatsService.Window.HOUR, candidates)
+                .forEach(trending -> growth.put(trending.term(), trending.growth()));
+        List<Candidate> ranked = new ArrayList<>();
+        for (StatsService.SearchTermCount top : statsService.getTopSearches(candidates)) {
+            if (top.getLastSearched() == null || top.getLastSearched().isBefore(idleCutoff)
+                    || refreshing.contains(top.getTerm())) {
+                continue;
+            }
+            Optional<PersistentProductCache.SearchFreshness> freshness = productCache.findSearchFreshness(top.getTerm());
+            if (freshness.isPresent() && freshness.get().expiresAt().isAfter(staleCutoff)) {
+                skippedFresh.increment();
+                continue;
+            }
+            double volatility = freshness.map(PersistentProductCache.SearchFreshness::volatility).orElse(0.0);
+            double trend = Math.max(1, growth.getOrDefault(top.getTerm(), 1.0));
+            ranked.add(new Candidate(top.getTerm(), top.getCount() * (1 + VOLATILITY_WEIGHT * volatility) * trend));
+        }
+        ranked.sort(Comparator.comparingDouble(Candidate::score).reversed());
+        return ranked;
+    }
+
+    private boolean launch(String term) {
+        if (!refreshing.add(term)) {
+            return false;
+        }
+        try {
+            taskExecutor.execute(() -> {
+                try {
+                    int products = scraperService.refreshSearch(term).size();
+                    refreshed.increment();
+                    logger.debug("Búsqueda '{}' refrescada en segundo plano ({} productos)", term, products);
+                } catch (RuntimeException e) {
+                    failed.increment();
+                    logger.warn("No se pudo refrescar la búsqueda popular '{}': {}", term, e.getMessage());
+                } finally {
+                    refreshing.remove(term);
+                }
+            });
+            return true;
+        } catch (RejectedExecutionException e) {
+            // Ejecutor saturado por las peticiones de usuarios: se reintenta en la próxima pasada
+            refreshing.remove(term);
+            return false;
+        }
+    }
+
+    private void refill() {
+        long now = System.currentTimeMillis();
+        budget = Math.min(maxBudget, budget + (now - lastRefillMillis) * requestsPerMilli);
+        lastRefillMillis = now;
+    }
+
+    /** Una página de resultados por tienda más las fichas que se descargan de cada una. */
+    private double estimatedRequestsPerSearch() {
+        return productScraper.getScrapers().size() * (1.0 + detailPagesPerStore);
+    }
+}
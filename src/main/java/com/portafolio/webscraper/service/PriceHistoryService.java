@@ -0,0 +1,123 @@
+package com.portafolio.webscraper.service;
+
+import com.portafolio.webscraper.model.ProductInfo;
+import com.portafolio.webscraper.repository.PriceSeriesStore;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Historial de precios de los productos scrapeados.
+ * Registrar una observación solo la encola en memoria (nunca bloquea: si la cola está llena se descarta
+ * y se cuenta); una tarea programada vacía la cola y la anexa en lotes al {@link PriceSeriesStore}.
+ * Así el endpoint de búsqueda no espera nunca al disco. Cada lote anexado queda en el diario del almacén,
+ * de modo que un cierre abrupto pierde como mucho lo encolado desde el último vaciado (flush-interval-ms).
+ * Otra tarea, menos frecuente, escribe los bloques abiertos para compactar el diario.
+ */
+@Service
+public class PriceHistoryService {
+
+    private static final Logger logger = LoggerFactory.getLogger(PriceHistoryService.class);
+
+    public record WriterStats(int queued, long written, long dropped, long failedBatches,
+                              PriceSeriesStore.StoreStats storage) {
+    }
+
+    private final PriceSeriesStore store;
+    private final BlockingQueue<PriceSeriesStore.Observation> pending;
+    private final int batchSize;
+
+    private final LongAdder written = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+    private final LongAdder failedBatches = new LongAdder();
+
+    public PriceHistoryService(PriceSeriesStore store,
+                               @Value("${scraper.price-history.queue-capacity:10000}") int queueCapacity,
+                               @Value("${scraper.price-history.batch-size:500}") int batchSize) {
+        this.store = store;
+        this.pending = new ArrayBlockingQueue<>(queueCapacity);
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * Encola una observación por producto válido. Se puede llamar desde cualquier hilo.
+     */
+    public void record(Collection<ProductInfo> products) {
+        for (ProductInfo product : products) {
+            if (product.getProductUrl() == null || product.getCurrentPrice() == null) continue;
+            Instant observedAt = product.getLastUpdated() != null
+                    ? product.getLastUpdated().atZone(ZoneId.systemDefault()).toInstant()
+                    : Instant.now();
+            PriceSeriesStore.Observation observation = new PriceSeriesStore.Observation(product.getProductKey(),
+                    observedAt, product.getCurrentPrice(), product.getCurrency(), product.isAvailable());
+            if (!pending.offer(observation)) {
+                dropped.increment();
+            }
+        }
+    }
+
+    /**
+     * Serie de precios de un producto en [from, to), en orden cronológico.
+     */
+    public List<PriceSeriesStore.PricePoint> getHistory(String productKey, Instant from, Instant to, int limit) {
+        return store.range(productKey, from, to, limit);
+    }
+
+    /**
+     * Mínimo, media y máximo diarios (UTC) de un producto entre dos fechas incluidas.
+     */
+    public List<PriceSeriesStore.DailyRollup> getDailyRollups(String productKey, LocalDate from, LocalDate to) {
+        return store.dailyRollups(productKey, from, to);
+    }
+
+    public WriterStats getWriterStats() {
+        return new WriterStats(pending.size(), written.sum(), dropped.sum(), failedBatches.sum(), store.getStats());
+    }
+
+    @Scheduled(fixedDelayString = "${scraper.price-history.flush-interval-ms:1000}")
+    public void flush() {
+        List<PriceSeriesStore.Observation> batch = new ArrayList<>(batchSize);
+        while (pending.drainTo(batch, batchSize) > 0) {
+            try {
+                store.append(batch);
+                written.add(batch.size());
+            } catch (IOException e) {
+                // Se pierde el lote: el historial es best-effort y no debe acumular memoria sin límite
+                failedBatches.increment();
+                logger.warn("No se pudo guardar un lote de {} precios: {}", batch.size(), e.getMessage());
+            }
+            batch.clear();
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${scraper.price-history.seal-interval-ms:600000}")
+    public void sealOpenChunks() {
+        try {
+            store.sealOpenChunks();
+        } catch (IOException e) {
+            logger.warn("No se pudieron escribir los bloques abiertos del historial: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Vacía la cola antes de que se cierre el almacén, que escribe los bloques abiertos al cerrarse.
+     */
+    @PreDestroy
+    public void flushOnShutdown() {
+        flush();
+    }
+}
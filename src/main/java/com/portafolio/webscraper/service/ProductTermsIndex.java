@@ -0,0 +1,53 @@
+package com.portafolio.webscraper.services;
+
+import java.util.ArrayDeque;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Últimos términos de búsqueda con los que se encontró cada producto. Dos términos distintos que llevan
+ * al mismo producto están relacionados: es la señal que alimenta {@link RelatedTermsIndex}.
+ * Recuerda como mucho {@code maxProducts} productos (se olvidan los usados hace más tiempo) y
+ * {@code termsPerProduct} términos por producto.
+ */
+final class ProductTermsIndex {
+
+    private final int termsPerProduct;
+    private final Map<String, Deque<String>> termsByProduct;
+
+    ProductTermsIndex(int maxProducts, int termsPerProduct) {
+        this.termsPerProduct = termsPerProduct;
+        this.termsByProduct = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Deque<String>> eldest) {
+                return size() > maxProducts;
+            }
+        };
+    }
+
+    /**
+     * Anota que {@code term} encontró estos productos y devuelve los otros términos que ya los habían
+     * encontrado, sin repetir.
+     */
+    Set<String> register(String term, Collection<String> productKeys) {
+        Set<String> others = new LinkedHashSet<>();
+        synchronized (termsByProduct) {
+            for (String productKey : productKeys) {
+                Deque<String> terms = termsByProduct.computeIfAbsent(productKey, k -> new ArrayDeque<>(termsPerProduct));
+                for (String other : terms) {
+                    if (!other.equals(term)) others.add(other);
+                }
+                terms.remove(term);
+                terms.addFirst(term);
+                if (terms.size() > termsPerProduct) {
+                    terms.removeLast();
+                }
+            }
+        }
+        return others;
+    }
+}
@@ -0,0 +1,106 @@
+package com.portafolio.webscraper.services;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Grafo de coocurrencia entre términos de búsqueda, con peso y acotado.
+ * Cada término guarda como mucho {@code maxPerTerm} vecinos. Al llegar uno nuevo con la lista llena se
+ * sustituye el más débil y el nuevo hereda su peso (Space-Saving), de modo que un vecino que empieza a
+ * aparecer a menudo acaba entrando. Los pesos decaen exponencialmente con una vida media fija; el
+ * decaimiento se aplica de forma perezosa al tocar cada vecino, sin tareas de mantenimiento.
+ */
+final class RelatedTermsIndex {
+
+    // Por debajo de este peso un vecino ya no se considera relacionado
+    private static final double MIN_WEIGHT = 0.05;
+
+    private final int maxPerTerm;
+    private final double halfLifeMillis;
+    private final Map<String, Neighbors> graph = new ConcurrentHashMap<>();
+
+    RelatedTermsIndex(int maxPerTerm, long halfLifeMillis) {
+        this.maxPerTerm = maxPerTerm;
+        this.halfLifeMillis = halfLifeMillis;
+    }
+
+    void add(String term, String neighbor, double weight, long nowMillis) {
+        graph.computeIfAbsent(term, k -> new Neighbors(maxPerTerm)).add(neighbor, weight, nowMillis, halfLifeMillis);
+    }
+
+    /**
+     * Vecinos de más a menos fuertes; O(maxPerTerm), independiente del tamaño del grafo.
+     */
+    List<StatsService.RelatedTerm> related(String term, int limit, long nowMillis) {
+        Neighbors neighbors = graph.get(term);
+        return neighbors == null ? List.of() : neighbors.top(limit, nowMillis, halfLifeMillis);
+    }
+
+    void remove(String term) {
+        graph.remove(term);
+    }
+
+    Iterable<String> terms() {
+        return graph.keySet();
+    }
+
+    /** Vecinos de un término en arrays paralelos; cada lista está protegida por su propio monitor. */
+    private static final class Neighbors {
+        private final String[] terms;
+        private final double[] weights;
+        private final long[] updatedAt;
+        private int size;
+
+        private Neighbors(int capacity) {
+            this.terms = new String[capacity];
+            this.weights = new double[capacity];
+            this.updatedAt = new long[capacity];
+        }
+
+        synchronized void add(String term, double weight, long now, double halfLife) {
+            int weakest = -1;
+            double weakestWeight = Double.MAX_VALUE;
+            for (int i = 0; i < size; i++) {
+                if (terms[i].equals(term)) {
+                    set(i, term, decayed(i, now, halfLife) + weight, now);
+                    return;
+                }
+                double current = decayed(i, now, halfLife);
+                if (current < weakestWeight) {
+                    weakest = i;
+                    weakestWeight = current;
+                }
+            }
+            if (size < terms.length) {
+                set(size++, term, weight, now);
+            } else {
+                set(weakest, term, weakestWeight + weight, now);
+            }
+        }
+
+        synchronized List<StatsService.RelatedTerm> top(int limit, long now, double halfLife) {
+            List<StatsService.RelatedTerm> top = new ArrayList<>(size);
+            for (int i = 0; i < size; i++) {
+                double current = decayed(i, now, halfLife);
+                if (current >= MIN_WEIGHT) {
+                    top.add(new StatsService.RelatedTerm(terms[i], current));
+                }
+            }
+            top.sort(Comparator.comparingDouble(StatsService.RelatedTerm::weight).reversed());
+            return top.size() > limit ? List.copyOf(top.subList(0, limit)) : top;
+        }
+
+        private double decayed(int i, long now, double halfLife) {
+            return weights[i] * Math.pow(0.5, Math.max(0, now - updatedAt[i]) / halfLife);
+        }
+
+        private void set(int i, String term, double weight, long now) {
+            terms[i] = term;
+            weights[i] = weight;
+            updatedAt[i] = now;
+        }
+    }
+}
@@ -2,7 +2,22 @@ package com.portafolio.webscraper.service;
 
 import com.portafolio.webscraper.model.ProductInfo;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
 
 public interface ScraperService {
     List<ProductInfo> searchProducts(String productName);
+
+    /**
+     * Busca en todas las tiendas notificando cada producto en cuanto se obtiene.
+     * @param onProduct Se invoca una vez por cada producto válido, desde el hilo de su tienda
+     * @return Futuro con la lista completa cuando todas las tiendas han respondido
+     */
+    CompletableFuture<List<ProductInfo>> streamProducts(String productName, Consumer<ProductInfo> onProduct);
+
+    /**
+     * Vuelve a buscar en las tiendas sin pasar por las cachés ni contar la búsqueda en las estadísticas,
+     * y guarda el resultado en ambas cachés.
+     */
+    List<ProductInfo> refreshSearch(String productName);
 }
\ No newline at end of file
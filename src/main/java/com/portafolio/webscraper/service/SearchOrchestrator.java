@@ -0,0 +1,192 @@
+package com.portafolio.webscraper.service;
+
+import com.portafolio.webscraper.model.ProductInfo;
+import com.portafolio.webscraper.scraper.ProductScraper;
+import com.portafolio.webscraper.scraper.SingleFlight;
+import com.portafolio.webscraper.services.StatsService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+
+/**
+ * Lanza la búsqueda en todas las tiendas registradas en paralelo y reúne los resultados parciales.
+ * Cada tienda corre en su propia tarea del {@code scraperExecutor} (nunca en el ForkJoinPool común),
+ * y la búsqueda completa tiene un plazo máximo: lo que no haya terminado a tiempo queda fuera de la respuesta.
+ * De cada tienda se toman los {@code scraper.search.results-per-store} primeros resultados.
+ * <p>
+ * Las búsquedas idénticas (según {@link StatsService#normalizeTerm}) que coinciden en el tiempo comparten
+ * el mismo scraping: cada llamada espera con su propio plazo sobre las mismas tareas por tienda. Por eso
+ * al vencer el plazo las tareas no se cancelan, solo se dejan de esperar.
+ */
+@Component
+public class SearchOrchestrator {
+
+    private static final Logger logger = LoggerFactory.getLogger(SearchOrchestrator.class);
+    private static final long SEARCH_DEADLINE_MS = 20000;
+
+    private final ProductScraper productScraper;
+    private final ExecutorService scraperExecutor;
+    private final int resultsPerStore;
+    private final int maxParallelDetails;
+    private final SingleFlight<SearchKey, Map<String, CompletableFuture<List<ProductInfo>>>> searchFlights = new SingleFlight<>();
+    private final PriceHistoryService priceHistory;
+    private final WatchlistService watchlist;
+    private final StatsService statsService;
+
+    /** Una revalidación no se une a una búsqueda normal en curso, que podría servir fichas de la caché. */
+    private record SearchKey(String normalizedTerm, boolean revalidate) {
+    }
+
+    public SearchOrchestrator(ProductScraper productScraper,
+                              @Qualifier("scraperExecutor") ExecutorService scraperExecutor,
+                              PriceHistoryService priceHistory,
+                              WatchlistService watchlist,
+                              StatsService statsService,
+                              @Value("${scraper.search.results-per-store:3}") int resultsPerStore,
+                              @Value("${scraper.search.max-parallel-details:3}") int maxParallelDetails) {
+        this.productScraper = productScraper;
+        this.scraperExecutor = scraperExecutor;
+        this.priceHistory = priceHistory;
+        this.watchlist = watchlist;
+        this.statsService = statsService;
+        this.resultsPerStore = resultsPerStore;
+        this.maxParallelDetails = maxParallelDetails;
+    }
+
+    /**
+     * Lanza una tarea por tienda y devuelve sus futuros, indexados por dominio; si ya hay una búsqueda
+     * idéntica en curso, devuelve los futuros de esa. Cada futuro se completa con los productos válidos
+     * de la tienda (lista vacía si falla).
+     */
+    public Map<String, CompletableFuture<List<ProductInfo>>> fanOut(String productName) {
+        return fanOut(productName, false);
+    }
+
+    private Map<String, CompletableFuture<List<ProductInfo>>> fanOut(String productName, boolean revalidate) {
+        return searchFlights.share(new SearchKey(StatsService.normalizeTerm(productName), revalidate),
+                () -> launchStores(productName, revalidate),
+                futures -> CompletableFuture.allOf(futures.values().toArray(new CompletableFuture[0])));
+    }
+
+    private Map<String, CompletableFuture<List<ProductInfo>>> launchStores(String productName, boolean revalidate) {
+        Map<String, CompletableFuture<List<ProductInfo>>> futures = new LinkedHashMap<>();
+        for (String domain : productScraper.getScrapers().keySet()) {
+            futures.put(domain, CompletableFuture.supplyAsync(
+                    () -> scrapeStore(productName, domain, revalidate), scraperExecutor));
+        }
+        return Collections.unmodifiableMap(futures);
+    }
+
+    /**
+     * Busca en todas las tiendas y devuelve los productos válidos obtenidos dentro del plazo.
+     */
+    public List<ProductInfo> search(String productName) {
+        return search(productName, false);
+    }
+
+    /**
+     * Igual que {@link #search(String)}; con {@code revalidate} las fichas se descargan de nuevo aunque
+     * estén en la caché de productos.
+     */
+    public List<ProductInfo> search(String productName, boolean revalidate) {
+        Map<String, CompletableFuture<List<ProductInfo>>> futures = fanOut(productName, revalidate);
+        CompletableFuture<Void> all = CompletableFuture.allOf(futures.values().toArray(new CompletableFuture[0]));
+        try {
+            all.get(SEARCH_DEADLINE_MS, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            logger.warn("Plazo de búsqueda agotado para '{}', se devuelven resultados parciales", productName);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            // Cada tarea captura sus propios errores; no debería ocurrir.
+            logger.error("Error inesperado en la búsqueda de '{}'", productName, e);
+        }
+
+        List<ProductInfo> products = new ArrayList<>();
+        futures.forEach((domain, future) -> {
+            if (!future.isDone()) {
+                logger.warn("Tienda {} descartada por exceder el plazo", domain);
+                return;
+            }
+            try {
+                products.addAll(future.getNow(List.of()));
+            } catch (CompletionException ignored) {
+                // Ya registrado en scrapeStore
+            }
+        });
+        return products;
+    }
+
+    /**
+     * Igual que {@link #search(String)}, pero entrega cada producto a {@code onProduct} en cuanto
+     * su tienda responde, sin esperar a las demás.
+     * @return futuro que se completa con todos los productos válidos al terminar o vencer el plazo
+     */
+    public CompletableFuture<List<ProductInfo>> searchProgressively(String productName, Consumer<ProductInfo> onProduct) {
+        Map<String, CompletableFuture<List<ProductInfo>>> futures = fanOut(productName);
+        List<ProductInfo> products = new CopyOnWriteArrayList<>();
+        AtomicBoolean expired = new AtomicBoolean();
+
+        CompletableFuture<?>[] delivered = futures.values().stream()
+                .map(future -> future.thenAccept(storeProducts -> {
+                    if (expired.get()) return;
+                    products.addAll(storeProducts);
+                    for (ProductInfo product : storeProducts) {
+                        try {
+                            onProduct.accept(product);
+                        } catch (RuntimeException e) {
+                            logger.warn("No se pudo entregar un resultado parcial de '{}': {}", productName, e.getMessage());
+                        }
+                    }
+                }))
+                .toArray(CompletableFuture[]::new);
+
+        return CompletableFuture.allOf(delivered)
+                .completeOnTimeout(null, SEARCH_DEADLINE_MS, TimeUnit.MILLISECONDS)
+                .thenApply(ignored -> {
+                    expired.set(true);
+                    return List.copyOf(products);
+                });
+    }
+
+    private List<ProductInfo> scrapeStore(String productName, String domain, boolean revalidate) {
+        LocalDateTime started = LocalDateTime.now();
+        try {
+            List<ProductInfo> products = productScraper.scrapeTopFromSearch(
+                    productName, domain, resultsPerStore, scraperExecutor, maxParallelDetails, revalidate);
+            List<ProductInfo> valid = products.stream().filter(ProductInfo::isValid).toList();
+            if (valid.size() < products.size()) {
+                logger.info("{} productos descartados de {} para '{}' (datos incompletos)",
+                        products.size() - valid.size(), domain, productName);
+            }
+            // Las fichas servidas de la caché no son observaciones nuevas del precio
+            priceHistory.record(valid.stream()
+                    .filter(product -> product.getLastUpdated() == null || !product.getLastUpdated().isBefore(started))
+                    .toList());
+            watchlist.evaluate(productName, valid);
+            statsService.recordResults(productName, valid.stream().map(ProductInfo::getProductKey).toList());
+            return valid;
+        } catch (Exception e) {
+            logger.warn("Error buscando '{}' en {}: {}", productName, domain, e.getMessage());
+        }
+        return List.of();
+    }
+}
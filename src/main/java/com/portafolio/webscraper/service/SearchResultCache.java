@@ -0,0 +1,175 @@
+package com.portafolio.webscraper.service;
+
+import com.portafolio.webscraper.model.ProductInfo;
+import com.portafolio.webscraper.services.StatsService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Caché en memoria de resultados de búsqueda, indexada por el término normalizado.
+ * <ul>
+ *   <li>Durante {@code ttl} la entrada está fresca y se sirve tal cual.</li>
+ *   <li>Durante los {@code stale} siguientes se sigue sirviendo al instante, pero se lanza una
+ *   recarga en segundo plano en {@code taskExecutor} (una sola por término).</li>
+ *   <li>Pasado ese tiempo la entrada caduca y la búsqueda vuelve a hacerse en primer plano.</li>
+ * </ul>
+ * El número de entradas está acotado; al llenarse se expulsa la usada hace más tiempo.
+ * Las búsquedas sin resultados no se guardan, para no ocultar que una tienda se ha recuperado.
+ */
+@Component
+public class SearchResultCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(SearchResultCache.class);
+
+    public record CacheStats(int size, long hits, long staleHits, long misses,
+                             long evictions, long expirations, long refreshes, double hitRate) {
+    }
+
+    private record CachedSearch(List<ProductInfo> products, long storedAtNanos) {
+    }
+
+    private final Executor taskExecutor;
+    private final int maxEntries;
+    private final long ttlNanos;
+    private final long staleNanos;
+
+    // LinkedHashMap en orden de acceso: el primero es el usado hace más tiempo. Protegido por su monitor.
+    private final Map<String, CachedSearch> entries;
+    private final Set<String> refreshing = ConcurrentHashMap.newKeySet();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder staleHits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder expirations = new LongAdder();
+    private final LongAdder refreshes = new LongAdder();
+
+    public SearchResultCache(@Qualifier("taskExecutor") Executor taskExecutor,
+                             @Value("${scraper.cache.max-entries:500}") int maxEntries,
+                             @Value("${scraper.cache.ttl-seconds:300}") long ttlSeconds,
+                             @Value("${scraper.cache.stale-seconds:600}") long staleSeconds) {
+        this.taskExecutor = taskExecutor;
+        this.maxEntries = maxEntries;
+        this.ttlNanos = TimeUnit.SECONDS.toNanos(ttlSeconds);
+        this.staleNanos = TimeUnit.SECONDS.toNanos(staleSeconds);
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, CachedSearch> eldest) {
+                if (size() > SearchResultCache.this.maxEntries) {
+                    evictions.increment();
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * Devuelve los resultados en caché (frescos o caducando) o null si no hay. Si están caducando,
+     * programa una recarga con {@code refresher}, que debe ir a las tiendas y no a otra caché.
+     */
+    public List<ProductInfo> getIfPresent(String query, Supplier<List<ProductInfo>> refresher) {
+        String key = StatsService.normalizeTerm(query);
+        CachedSearch entry;
+        synchronized (entries) {
+            entry = entries.get(key);
+        }
+        if (entry == null) {
+            misses.increment();
+            return null;
+        }
+        long age = System.nanoTime() - entry.storedAtNanos();
+        if (age < ttlNanos) {
+            hits.increment();
+            return entry.products();
+        }
+        if (age < ttlNanos + staleNanos) {
+            staleHits.increment();
+            refreshInBackground(key, refresher);
+            return entry.products();
+        }
+        synchronized (entries) {
+            entries.remove(key, entry);
+        }
+        expirations.increment();
+        misses.increment();
+        return null;
+    }
+
+    public void put(String query, List<ProductInfo> products) {
+        store(StatsService.normalizeTerm(query), products, System.nanoTime());
+    }
+
+    /**
+     * Guarda resultados obtenidos de las tiendas en {@code fetchedAt} (p. ej. leídos de la caché
+     * persistente). La entrada conserva su antigüedad real para no servir como fresco lo que no lo es;
+     * si ya pasó el TTL se sirve como caducando y se lanza enseguida la recarga con {@code refresher}.
+     */
+    public void put(String query, List<ProductInfo> products, Instant fetchedAt,
+                    Supplier<List<ProductInfo>> refresher) {
+        long ageNanos = Math.max(0, Duration.between(fetchedAt, Instant.now()).toNanos());
+        String key = StatsService.normalizeTerm(query);
+        store(key, products, System.nanoTime() - Math.min(ageNanos, ttlNanos));
+        if (ageNanos >= ttlNanos && products != null && !products.isEmpty()) {
+            refreshInBackground(key, refresher);
+        }
+    }
+
+    private void store(String key, List<ProductInfo> products, long storedAtNanos) {
+        if (products == null || products.isEmpty()) {
+            return;
+        }
+        CachedSearch entry = new CachedSearch(List.copyOf(products), storedAtNanos);
+        synchronized (entries) {
+            entries.put(key, entry);
+        }
+    }
+
+    public CacheStats getStats() {
+        int size;
+        synchronized (entries) {
+            size = entries.size();
+        }
+        long served = hits.sum() + staleHits.sum();
+        long total = served + misses.sum();
+        return new CacheStats(size, hits.sum(), staleHits.sum(), misses.sum(), evictions.sum(),
+                expirations.sum(), refreshes.sum(), total == 0 ? 0 : (double) served / total);
+    }
+
+    private void refreshInBackground(String key, Supplier<List<ProductInfo>> refresher) {
+        if (!refreshing.add(key)) {
+            return;
+        }
+        try {
+            taskExecutor.execute(() -> {
+                try {
+                    store(key, refresher.get(), System.nanoTime());
+                    refreshes.increment();
+                } catch (RuntimeException e) {
+                    logger.warn("No se pudo refrescar la búsqueda '{}': {}", key, e.getMessage());
+                } finally {
+                    refreshing.remove(key);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            // Ejecutor saturado: se sigue sirviendo la entrada antigua y se reintenta en el próximo acceso
+            refreshing.remove(key);
+        }
+    }
+}
@@ -0,0 +1,161 @@
+package com.portafolio.webscraper.services;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Autocompletado sobre los términos de {@link StatsService}, ordenado por popularidad.
+ * Las consultas leen, sin cerrojos, dos {@link SuggestIndex} inmutables publicados juntos en un campo
+ * volátil: la base y un índice pequeño con los términos que han cambiado desde que se construyó. Cada
+ * búsqueda marca su término como pendiente; la tarea de reconstrucción solo rehace el índice de cambios,
+ * O(d log d), y lo mezcla con la base, O(n), cuando supera {@code max-pending} términos. Como las cuentas
+ * solo crecen entre podas, el top-K de la base sin los términos cambiados más el top-K de los cambios
+ * contiene el top-K real. Si desde la última vez se han podado términos, o hay más pendientes de los que
+ * caben, se reconstruye entero con los {@code max-terms} más buscados.
+ */
+@Component
+public class SearchSuggester {
+
+    private static final Logger logger = LoggerFactory.getLogger(SearchSuggester.class);
+
+    public record Suggestion(String term, long count) {
+    }
+
+    private final StatsService statsService;
+    private final int maxTerms;
+    private final int maxSuggestions;
+    private final int maxPending;
+
+    private final Set<String> pending = ConcurrentHashMap.newKeySet();
+    private final AtomicInteger pendingCount = new AtomicInteger();
+    /** Base y términos cambiados desde que se construyó; un término de {@code changes} oculta el de la base. */
+    private record Snapshot(SuggestIndex base, SuggestIndex changes) {
+    }
+
+    private volatile Snapshot snapshot = new Snapshot(SuggestIndex.EMPTY, SuggestIndex.EMPTY);
+    // Solo los usa la tarea de reconstrucción
+    private long indexedPruneCount = -1;
+    private final TreeMap<String, Long> changes = new TreeMap<>();
+
+    public SearchSuggester(StatsService statsService,
+                           @Value("${scraper.stats.suggest.max-terms:10000}") int maxTerms,
+                           @Value("${scraper.stats.suggest.max-suggestions:10}") int maxSuggestions,
+                           @Value("${scraper.stats.suggest.max-pending:1000}") int maxPending) {
+        this.statsService = statsService;
+        this.maxTerms = maxTerms;
+        this.maxSuggestions = maxSuggestions;
+        this.maxPending = maxPending;
+        statsService.addSearchListener(this::markPending);
+    }
+
+    /**
+     * Hasta {@code limit} términos que empiezan por el prefijo, de más a menos buscados.
+     */
+    public List<Suggestion> suggest(String prefix, int limit) {
+        String normalized = StatsService.normalizeTerm(prefix);
+        if (normalized.isEmpty()) {
+            return List.of();
+        }
+        int size = Math.min(limit, maxSuggestions);
+        Snapshot current = snapshot;
+        List<Suggestion> changed = current.changes().suggest(normalized, size);
+        if (changed.isEmpty()) {
+            return current.base().suggest(normalized, size);
+        }
+        List<Suggestion> merged = new ArrayList<>(changed.size() + size);
+        for (Suggestion suggestion : current.base().suggest(normalized, size)) {
+            if (!current.changes().contains(suggestion.term())) merged.add(suggestion);
+        }
+        for (Suggestion suggestion : changed) {
+            // Peso 0: término quitado
+            if (suggestion.count() > 0) merged.add(suggestion);
+        }
+        merged.sort(Comparator.comparingLong(Suggestion::count).reversed());
+        return merged.size() > size ? List.copyOf(merged.subList(0, size)) : merged;
+    }
+
+    @Scheduled(fixedDelayString = "${scraper.stats.suggest.rebuild-interval-ms:5000}")
+    public void rebuild() {
+        long pruneCount = statsService.getPruneCount();
+        if (pruneCount != indexedPruneCount || pendingCount.get() >= maxPending) {
+            indexedPruneCount = pruneCount;
+            drainPending();
+            rebuildFully();
+            return;
+        }
+        List<String> drained = drainPending();
+        if (drained.isEmpty()) {
+            return;
+        }
+        for (String term : drained) {
+            changes.put(term, statsService.countOf(term));
+        }
+        if (changes.size() < maxPending) {
+            snapshot = new Snapshot(snapshot.base(), indexOf(changes));
+            return;
+        }
+        SuggestIndex merged = snapshot.base().merge(changes);
+        changes.clear();
+        if (merged.size() > maxTerms) {
+            rebuildFully();
+            return;
+        }
+        snapshot = new Snapshot(merged, SuggestIndex.EMPTY);
+    }
+
+    private void markPending(String term, long timestampMillis) {
+        // Con la cola llena basta con saber que hay que reconstruir entero
+        if (pendingCount.get() < maxPending && pending.add(term)) {
+            pendingCount.incrementAndGet();
+        }
+    }
+
+    private List<String> drainPending() {
+        List<String> drained = new ArrayList<>(pending);
+        pending.removeAll(drained);
+        pendingCount.addAndGet(-drained.size());
+        return drained;
+    }
+
+    private SuggestIndex indexOf(SortedMap<String, Long> entries) {
+        String[] terms = new String[entries.size()];
+        long[] weights = new long[entries.size()];
+        int i = 0;
+        for (Map.Entry<String, Long> entry : entries.entrySet()) {
+            terms[i] = entry.getKey();
+            weights[i++] = entry.getValue();
+        }
+        return SuggestIndex.build(terms, weights, maxSuggestions);
+    }
+
+    private void rebuildFully() {
+        List<Map.Entry<String, Integer>> entries = new ArrayList<>(statsService.getSearchCounts().entrySet());
+        if (entries.size() > maxTerms) {
+            entries.sort(Map.Entry.<String, Integer>comparingByValue().reversed());
+            entries = entries.subList(0, maxTerms);
+        }
+        entries.sort(Map.Entry.comparingByKey(Comparator.naturalOrder()));
+        String[] terms = new String[entries.size()];
+        long[] weights = new long[entries.size()];
+        for (int i = 0; i < terms.length; i++) {
+            terms[i] = entries.get(i).getKey();
+            weights[i] = entries.get(i).getValue();
+        }
+        changes.clear();
+        snapshot = new Snapshot(SuggestIndex.build(terms, weights, maxSuggestions), SuggestIndex.EMPTY);
+        logger.debug("Índice de autocompletado reconstruido con {} términos", terms.length);
+    }
+}
@@ -0,0 +1,364 @@
+package com.portafolio.webscraper.services;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+/**
+ * Persistencia de {@link StatsService}: una instantánea binaria periódica más un diario de solo anexado
+ * con las búsquedas registradas desde entonces.
+ * <p>
+ * La búsqueda solo encola el evento (cola sin cerrojos y acotada; si se llena se descarta y se cuenta).
+ * Un hilo propio vacía la cola cada {@code flush-interval-ms} y la escribe como un único lote con CRC
+ * seguido de un solo fsync (group commit). Cada {@code snapshot-interval-ms}, o si el diario supera
+ * {@code max-log-bytes}, abre un diario nuevo, escribe la instantánea en un fichero temporal, la renombra
+ * de forma atómica y borra los diarios anteriores.
+ * <p>
+ * Al arrancar se carga la instantánea y se reaplican los diarios de su generación en adelante, hasta el
+ * primer lote incompleto o dañado. Las búsquedas que estaban en la cola al tomar la instantánea pueden
+ * contarse dos veces tras una recuperación; para estas estadísticas es aceptable.
+ */
+@Component
+public class StatsJournal {
+
+    private static final Logger logger = LoggerFactory.getLogger(StatsJournal.class);
+
+    public record JournalStats(boolean enabled, int pending, long logged, long dropped, long batches,
+                               long snapshots, long logBytes) {
+    }
+
+    private record SearchEvent(String term, long timestampMillis) {
+    }
+
+    private static final int SNAPSHOT_MAGIC = 0x53545353; // "STSS"
+    private static final int SNAPSHOT_VERSION = 1;
+    private static final String SNAPSHOT_FILE = "snapshot.bin";
+    private static final String LOG_PREFIX = "searches-";
+    private static final String LOG_SUFFIX = ".log";
+    // Los términos más largos no se persisten (una búsqueda real nunca llega a tanto)
+    private static final int MAX_TERM_CHARS = 512;
+
+    private final StatsService statsService;
+    private final boolean enabled;
+    private final Path dir;
+    private final long flushIntervalMs;
+    private final long snapshotIntervalMs;
+    private final long maxLogBytes;
+    private final int queueCapacity;
+
+    private final Queue<SearchEvent> pending = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger pendingCount = new AtomicInteger();
+    private final LongAdder logged = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+    private final LongAdder batches = new LongAdder();
+    private final LongAdder snapshots = new LongAdder();
+
+    private ScheduledExecutorService writer;
+    // Solo los usa el hilo escritor (y el arranque y el cierre, cuando ese hilo no corre)
+    private FileChannel log;
+    private long generation;
+    private long lastSnapshotMillis;
+    private volatile long logBytes;
+
+    public StatsJournal(StatsService statsService,
+                        @Value("${scraper.stats.persistence.enabled:true}") boolean enabled,
+                        @Value("${scraper.stats.persistence.dir:data/stats}") String dir,
+                        @Value("${scraper.stats.persistence.flush-interval-ms:200}") long flushIntervalMs,
+                        @Value("${scraper.stats.persistence.snapshot-interval-ms:300000}") long snapshotIntervalMs,
+                        @Value("${scraper.stats.persistence.max-log-bytes:16777216}") long maxLogBytes,
+                        @Value("${scraper.stats.persistence.queue-capacity:100000}") int queueCapacity) {
+        this.statsService = statsService;
+        this.enabled = enabled;
+        this.dir = Path.of(dir);
+        this.flushIntervalMs = flushIntervalMs;
+        this.snapshotIntervalMs = snapshotIntervalMs;
+        this.maxLogBytes = maxLogBytes;
+        this.queueCapacity = queueCapacity;
+    }
+
+    @PostConstruct
+    public void start() throws IOException {
+        if (!enabled) {
+            return;
+        }
+        Files.createDirectories(dir);
+        long started = System.currentTimeMillis();
+        recover();
+        logger.info("Estadísticas recuperadas en {} ms: {} términos", System.currentTimeMillis() - started,
+                statsService.getTrackedTerms());
+        // Se empieza siempre con una instantánea: compacta los diarios recuperados
+        rotateAndSnapshot();
+        statsService.addSearchListener(this::enqueue);
+        writer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "stats-journal");
+            thread.setDaemon(true);
+            return thread;
+        });
+        writer.scheduleWithFixedDelay(this::flushSafely, flushIntervalMs, flushIntervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (writer == null) {
+            return;
+        }
+        writer.shutdown();
+        try {
+            writer.awaitTermination(5, TimeUnit.SECONDS);
+            flush();
+            rotateAndSnapshot();
+            log.close();
+        } catch (IOException e) {
+            logger.warn("No se pudo guardar la instantánea de estadísticas al cerrar: {}", e.getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    public JournalStats getStats() {
+        return new JournalStats(enabled, pendingCount.get(), logged.sum(), dropped.sum(), batches.sum(),
+                snapshots.sum(), logBytes);
+    }
+
+    private void enqueue(String term, long timestampMillis) {
+        if (term.length() > MAX_TERM_CHARS) {
+            return;
+        }
+        if (pendingCount.incrementAndGet() > queueCapacity) {
+            pendingCount.decrementAndGet();
+            dropped.increment();
+            return;
+        }
+        pending.add(new SearchEvent(term, timestampMillis));
+    }
+
+    private void flushSafely() {
+        try {
+            flush();
+            if (logBytes > maxLogBytes || System.currentTimeMillis() - lastSnapshotMillis > snapshotIntervalMs) {
+                rotateAndSnapshot();
+            }
+        } catch (IOException | RuntimeException e) {
+            logger.warn("Error persistiendo las estadísticas: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Escribe todo lo encolado como un lote: longitud | CRC32 | eventos, y un único fsync.
+     */
+    private void flush() throws IOException {
+        List<SearchEvent> batch = new ArrayList<>();
+        SearchEvent event;
+        while ((event = pending.poll()) != null) {
+            batch.add(event);
+        }
+        if (batch.isEmpty()) {
+            return;
+        }
+        pendingCount.addAndGet(-batch.size());
+        int size = 0;
+        List<byte[]> terms = new ArrayList<>(batch.size());
+        for (SearchEvent e : batch) {
+            byte[] term = e.term().getBytes(StandardCharsets.UTF_8);
+            terms.add(term);
+            size += Long.BYTES + Short.BYTES + term.length;
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(Integer.BYTES * 2 + size);
+        buffer.putInt(size).putInt(0);
+        for (int i = 0; i < batch.size(); i++) {
+            buffer.putLong(batch.get(i).timestampMillis()).putShort((short) terms.get(i).length).put(terms.get(i));
+        }
+        CRC32 crc = new CRC32();
+        crc.update(buffer.array(), Integer.BYTES * 2, size);
+        buffer.putInt(Integer.BYTES, (int) crc.getValue());
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            log.write(buffer);
+        }
+        log.force(false);
+        logBytes = log.size();
+        logged.add(batch.size());
+        batches.increment();
+    }
+
+    /**
+     * Abre el diario de la generación siguiente y guarda el estado actual como instantánea de esa
+     * generación; después borra los diarios anteriores, que ya están incluidos en ella.
+     */
+    private void rotateAndSnapshot() throws IOException {
+        flush();
+        if (log != null) {
+            log.close();
+        }
+        generation++;
+        log = FileChannel.open(logPath(generation), StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.APPEND);
+        logBytes = log.size();
+        writeSnapshot(generation);
+        lastSnapshotMillis = System.currentTimeMillis();
+        snapshots.increment();
+        for (long old : logGenerations()) {
+            if (old < generation) {
+                Files.deleteIfExists(logPath(old));
+            }
+        }
+    }
+
+    private void writeSnapshot(long snapshotGeneration) throws IOException {
+        Path tmp = dir.resolve(SNAPSHOT_FILE + ".tmp");
+        List<StatsService.TermSnapshot> terms = statsService.snapshotTerms();
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp)))) {
+            out.writeInt(SNAPSHOT_MAGIC);
+            out.writeInt(SNAPSHOT_VERSION);
+            out.writeLong(snapshotGeneration);
+            out.writeLong(statsService.getEvictedCount());
+            out.writeInt(terms.size());
+            for (StatsService.TermSnapshot term : terms) {
+                out.writeUTF(term.term());
+                out.writeLong(term.count());
+                out.writeLong(term.error());
+                out.writeLong(term.lastSearchedMillis());
+                writeBuckets(out, term.lastMinute());
+                writeBuckets(out, term.lastHour());
+                writeBuckets(out, term.lastDays());
+            }
+        }
+        try (FileChannel channel = FileChannel.open(tmp, StandardOpenOption.WRITE)) {
+            channel.force(true);
+        }
+        Files.move(tmp, dir.resolve(SNAPSHOT_FILE), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private void recover() throws IOException {
+        long snapshotGeneration = 0;
+        Path snapshot = dir.resolve(SNAPSHOT_FILE);
+        if (Files.exists(snapshot)) {
+            try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(snapshot)))) {
+                if (in.readInt() != SNAPSHOT_MAGIC || in.readInt() != SNAPSHOT_VERSION) {
+                    throw new IOException("formato desconocido");
+                }
+                snapshotGeneration = in.readLong();
+                long evictedCount = in.readLong();
+                int count = in.readInt();
+                List<StatsService.TermSnapshot> terms = new ArrayList<>(count);
+                for (int i = 0; i < count; i++) {
+                    terms.add(new StatsService.TermSnapshot(in.readUTF(), in.readLong(), in.readLong(), in.readLong(),
+                            readBuckets(in), readBuckets(in), readBuckets(in)));
+                }
+                statsService.restore(evictedCount, terms);
+            } catch (IOException e) {
+                // Sin instantánea válida aún se pueden reaplicar los diarios que queden
+                logger.warn("Instantánea de estadísticas ilegible, se ignora: {}", e.getMessage());
+                snapshotGeneration = 0;
+            }
+        }
+        generation = snapshotGeneration;
+        for (long logGeneration : logGenerations()) {
+            if (logGeneration >= snapshotGeneration) {
+                replay(logPath(logGeneration));
+            }
+            generation = Math.max(generation, logGeneration);
+        }
+    }
+
+    private void replay(Path path) throws IOException {
+        ByteBuffer data = ByteBuffer.wrap(Files.readAllBytes(path));
+        int events = 0;
+        while (data.remaining() >= Integer.BYTES * 2) {
+            int size = data.getInt();
+            int expectedCrc = data.getInt();
+            if (size < 0 || size > data.remaining()) {
+                break;
+            }
+            CRC32 crc = new CRC32();
+            crc.update(data.array(), data.position(), size);
+            if ((int) crc.getValue() != expectedCrc) {
+                logger.warn("Lote dañado en {}, se ignora el resto del diario", path.getFileName());
+                break;
+            }
+            int end = data.position() + size;
+            while (data.position() < end) {
+                long timestampMillis = data.getLong();
+                byte[] term = new byte[data.getShort()];
+                data.get(term);
+                statsService.replaySearch(new String(term, StandardCharsets.UTF_8), timestampMillis);
+                events++;
+            }
+        }
+        logger.info("Reaplicadas {} búsquedas de {}", events, path.getFileName());
+    }
+
+    private List<Long> logGenerations() throws IOException {
+        try (Stream<Path> files = Files.list(dir)) {
+            return files.map(path -> path.getFileName().toString())
+                    .filter(name -> name.startsWith(LOG_PREFIX) && name.endsWith(LOG_SUFFIX))
+                    .map(name -> name.substring(LOG_PREFIX.length(), name.length() - LOG_SUFFIX.length()))
+                    .filter(number -> number.chars().allMatch(Character::isDigit) && !number.isEmpty())
+                    .map(Long::parseLong)
+                    .sorted()
+                    .toList();
+        }
+    }
+
+    private Path logPath(long logGeneration) {
+        return dir.resolve(LOG_PREFIX + String.format("%010d", logGeneration) + LOG_SUFFIX);
+    }
+
+    /** Solo los cubos usados: número de cubos | (posición | valor)... */
+    private static void writeBuckets(DataOutputStream out, long[] buckets) throws IOException {
+        int used = 0;
+        for (long bucket : buckets) {
+            if (bucket != 0) used++;
+        }
+        out.writeShort(buckets.length);
+        out.writeShort(used);
+        for (int i = 0; i < buckets.length; i++) {
+            if (buckets[i] != 0) {
+                out.writeShort(i);
+                out.writeLong(buckets[i]);
+            }
+        }
+    }
+
+    private static long[] readBuckets(DataInputStream in) throws IOException {
+        long[] buckets = new long[in.readShort()];
+        int used = in.readShort();
+        for (int i = 0; i < used; i++) {
+            int index = in.readShort();
+            long value = in.readLong();
+            if (index < 0 || index >= buckets.length) {
+                throw new EOFException("cubo fuera de rango");
+            }
+            buckets[index] = value;
+        }
+        return buckets;
+    }
+}
@@ -1,47 +1,290 @@
 package com.portafolio.webscraper.services;
 
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+import java.time.Instant;
 import java.time.LocalDateTime;
+import java.time.ZoneId;
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.stream.Collectors;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
 
+/**
+ * Estadísticas de búsqueda. Registrar una búsqueda no toma ningún cerrojo: cada término tiene un
+ * contador repartido ({@link LongAdder}) y la fecha de su última búsqueda en un {@link AtomicLong},
+ * así que búsquedas simultáneas, incluso del mismo término, no se serializan.
+ * <p>
+ * La memoria está acotada a {@code scraper.stats.max-terms} términos con un esquema Space-Saving: cuando
+ * se supera el límite (más un margen, para podar por lotes) se descartan los términos menos buscados y
+ * cada término nuevo empieza con la cuenta más alta descartada hasta entonces, anotada como su error
+ * máximo. Los términos de la cabeza de la distribución nunca se descartan y su cuenta es exacta (error 0).
+ * Los términos se mantienen ordenados por cuenta en un árbol: cada búsqueda solo marca su término como
+ * pendiente (sin cerrojo) y al pedir el top-K o al podar se recolocan los pendientes, O(log n) cada uno.
+ * El top-K cuesta así O(K) más lo que haya cambiado desde la última consulta, y la poda quita los últimos
+ * del árbol sin ordenar todo el mapa.
+ * <p>
+ * Además de la cuenta total, cada término lleva contadores por ventanas ({@link WindowCounter}): el último
+ * minuto en cubos de 10 s, la última hora en cubos de un minuto y los dos últimos días en cubos de una
+ * hora. Con ellos {@link #getTrending} compara lo buscado en la ventana con el ritmo de referencia.
+ * <p>
+ * Los términos relacionados se guardan en un grafo de coocurrencia con peso, acotado por término y con
+ * decaimiento temporal ({@link RelatedTermsIndex}). Dos términos coocurren cuando sus búsquedas
+ * encuentran el mismo producto ({@link #recordResults}).
+ */
 @Service
 public class StatsService {
 
-    private final Map<String, Integer> searchCounts = new ConcurrentHashMap<>();
-    private final Map<String, LocalDateTime> lastSearchTimestamps = new ConcurrentHashMap<>();
-    private final Map<String, Set<String>> relatedSearches = new ConcurrentHashMap<>();
+    /**
+     * Contadores de un término. La fecha solo avanza: si dos hilos compiten gana siempre la más reciente.
+     */
+    private static final class TermCounter {
+        private final String term;
+        private final LongAdder count = new LongAdder();
+        private final AtomicLong lastSearchedMillis = new AtomicLong();
+        // Búsquedas que se le pueden haber atribuido de más al heredar la cuenta de los descartados
+        private final long error;
+        private final WindowCounter lastMinute = new WindowCounter(6, 10_000);
+        private final WindowCounter lastHour = new WindowCounter(60, 60_000);
+        private final WindowCounter lastDays = new WindowCounter(48, 3_600_000);
+        // Si ya está en la cola de pendientes de recolocar en el árbol
+        private final AtomicBoolean pending = new AtomicBoolean();
+        // Entrada actual en el árbol ordenado; solo se toca con maintenanceLock
+        private RankedTerm ranked;
+
+        private TermCounter(String term, long error) {
+            this.term = term;
+            this.error = error;
+            count.add(error);
+        }
+
+        private void record(long nowMillis) {
+            count.increment();
+            lastMinute.increment(nowMillis);
+            lastHour.increment(nowMillis);
+            lastDays.increment(nowMillis);
+            lastSearchedMillis.accumulateAndGet(nowMillis, Math::max);
+        }
+
+        private int count() {
+            return (int) Math.min(Integer.MAX_VALUE, count.sum());
+        }
+
+        private LocalDateTime lastSearched() {
+            return LocalDateTime.ofInstant(Instant.ofEpochMilli(lastSearchedMillis.get()), ZoneId.systemDefault());
+        }
+    }
+
+    public enum Window { MINUTE, HOUR, DAY }
+
+    /**
+     * Término en tendencia: búsquedas en la ventana, las esperadas según el ritmo de referencia
+     * y la proporción entre ambas (suavizada con +1).
+     */
+    public record TrendingTerm(String term, long recentCount, double baselineCount, double growth) {
+    }
+
+    public record RelatedTerm(String term, double weight) {
+    }
+
+    /** Término con la cuenta que tenía al clasificarlo: con escrituras concurrentes, el orden necesita un valor fijo. */
+    private record RankedTerm(String term, TermCounter counter, long rankedCount) {
+    }
+
+    private static final Comparator<RankedTerm> BY_COUNT_DESC =
+            Comparator.comparingLong(RankedTerm::rankedCount).reversed().thenComparing(RankedTerm::term);
+    // Con menos búsquedas en la ventana, una sola búsqueda de un término nuevo ya parecería tendencia
+    private static final int MIN_TRENDING_COUNT = 2;
+    // Términos recientes que se recuerdan por producto para detectar coocurrencias
+    private static final int TERMS_PER_PRODUCT = 8;
+
+    private final Map<String, TermCounter> termCounters = new ConcurrentHashMap<>();
+    private final RelatedTermsIndex relatedSearches;
+    private final ProductTermsIndex termsByProduct;
+    private final int maxTerms;
+    private final int pruneSlack;
+    private final ReentrantLock maintenanceLock = new ReentrantLock();
+    private final List<SearchListener> listeners = new CopyOnWriteArrayList<>();
+    // Mayor cuenta descartada hasta ahora: la cuenta inicial (y el error) de los términos nuevos
+    private volatile long evictedCount;
+    // Cambia cada vez que pueden desaparecer términos (poda o restauración); lo usan los índices derivados
+    private volatile long pruneCount;
+    // Resumen Space-Saving ordenado de mayor a menor cuenta; solo se toca con maintenanceLock
+    private final TreeSet<RankedTerm> ranking = new TreeSet<>(BY_COUNT_DESC);
+    private final Queue<TermCounter> pendingRanking = new ConcurrentLinkedQueue<>();
+
+    public StatsService(@Value("${scraper.stats.max-terms:10000}") int maxTerms,
+                        @Value("${scraper.stats.related.max-per-term:20}") int maxRelatedPerTerm,
+                        @Value("${scraper.stats.related.half-life-hours:168}") long relatedHalfLifeHours,
+                        @Value("${scraper.stats.related.max-products:20000}") int maxRelatedProducts) {
+        this.maxTerms = maxTerms;
+        this.pruneSlack = Math.max(16, maxTerms / 10);
+        this.relatedSearches = new RelatedTermsIndex(maxRelatedPerTerm, TimeUnit.HOURS.toMillis(relatedHalfLifeHours));
+        this.termsByProduct = new ProductTermsIndex(maxRelatedProducts, TERMS_PER_PRODUCT);
+    }
 
     /**
      * Registra una búsqueda y actualiza las estadísticas
      * @param searchTerm Término de búsqueda
      * @param relatedTerms Términos relacionados (opcional)
      */
-    public synchronized void recordSearch(String searchTerm, String... relatedTerms) {
+    public void recordSearch(String searchTerm, String... relatedTerms) {
         if (searchTerm == null || searchTerm.trim().isEmpty()) {
             return;
         }
 
         String normalizedTerm = normalizeTerm(searchTerm);
-
-        // Actualiza contador
-        searchCounts.merge(normalizedTerm, 1, Integer::sum);
-
-        // Registra timestamp
-        lastSearchTimestamps.put(normalizedTerm, LocalDateTime.now());
+        long now = System.currentTimeMillis();
+        record(counterFor(normalizedTerm), now);
+        for (SearchListener listener : listeners) {
+            listener.onSearch(normalizedTerm, now);
+        }
 
         // Registra términos relacionados
         if (relatedTerms != null && relatedTerms.length > 0) {
-            relatedSearches.computeIfAbsent(normalizedTerm, k -> ConcurrentHashMap.newKeySet()) // Usar un Set concurrente es más seguro
-                    .addAll(Arrays.stream(relatedTerms)
-                            .filter(Objects::nonNull)
-                            .map(this::normalizeTerm)
-                            .collect(Collectors.toSet()));
+            for (String related : relatedTerms) {
+                if (related == null || related.isBlank()) continue;
+                link(normalizedTerm, normalizeTerm(related), now);
+            }
+        }
+    }
+
+    /**
+     * Registra los productos que encontró una búsqueda de {@code searchTerm}: queda relacionada con
+     * los otros términos cuyas búsquedas recientes encontraron alguno de esos mismos productos.
+     */
+    public void recordResults(String searchTerm, Collection<String> productKeys) {
+        if (searchTerm == null || searchTerm.isBlank() || productKeys.isEmpty()) {
+            return;
+        }
+        String normalizedTerm = normalizeTerm(searchTerm);
+        long now = System.currentTimeMillis();
+        for (String other : termsByProduct.register(normalizedTerm, productKeys)) {
+            link(normalizedTerm, other, now);
+        }
+    }
+
+    /**
+     * La coocurrencia es simétrica, pero solo se guardan aristas desde términos contados para que
+     * el grafo quede acotado por max-terms. Los resultados llegan después de la búsqueda, así que el
+     * término puede haberse podado entretanto: entonces la coocurrencia se descarta.
+     */
+    private void link(String normalizedTerm, String normalizedRelated, long now) {
+        if (normalizedRelated.equals(normalizedTerm) || !termCounters.containsKey(normalizedTerm)) {
+            return;
+        }
+        relatedSearches.add(normalizedTerm, normalizedRelated, 1, now);
+        if (termCounters.containsKey(normalizedRelated)) {
+            relatedSearches.add(normalizedRelated, normalizedTerm, 1, now);
+        }
+    }
+
+    /**
+     * Vuelve a aplicar una búsqueda ya registrada (p. ej. desde el diario en disco) con su instante original,
+     * sin avisar a los {@link SearchListener}.
+     */
+    void replaySearch(String normalizedTerm, long timestampMillis) {
+        record(counterFor(normalizedTerm), timestampMillis);
+    }
+
+    private void record(TermCounter counter, long timestampMillis) {
+        counter.record(timestampMillis);
+        if (!counter.pending.get() && counter.pending.compareAndSet(false, true)) {
+            pendingRanking.add(counter);
         }
     }
 
+    /**
+     * Se invoca, en el hilo de la búsqueda, por cada búsqueda registrada. Debe volver enseguida.
+     */
+    public interface SearchListener {
+        void onSearch(String normalizedTerm, long timestampMillis);
+    }
+
+    public void addSearchListener(SearchListener listener) {
+        listeners.add(listener);
+    }
+
+    // Un get previo evita el bloqueo de computeIfAbsent en los términos ya vistos
+    private TermCounter counterFor(String normalizedTerm) {
+        TermCounter counter = termCounters.get(normalizedTerm);
+        if (counter == null) {
+            counter = termCounters.computeIfAbsent(normalizedTerm, k -> new TermCounter(k, evictedCount));
+            if (termCounters.size() > maxTerms + pruneSlack) {
+                prune();
+            }
+        }
+        return counter;
+    }
+
+    // --- INSTANTÁNEAS (ver StatsJournal) ---
+
+    /**
+     * Estado completo de un término; las ventanas son los cubos en bruto de cada {@link WindowCounter}.
+     */
+    record TermSnapshot(String term, long count, long error, long lastSearchedMillis,
+                        long[] lastMinute, long[] lastHour, long[] lastDays) {
+    }
+
+    /**
+     * Cambia cada vez que pueden haber desaparecido términos (poda o restauración).
+     */
+    long getPruneCount() {
+        return pruneCount;
+    }
+
+    /**
+     * Cuenta actual de un término, o 0 si no se está contando.
+     */
+    long countOf(String normalizedTerm) {
+        TermCounter counter = termCounters.get(normalizedTerm);
+        return counter == null ? 0 : counter.count.sum();
+    }
+
+    long getEvictedCount() {
+        return evictedCount;
+    }
+
+    List<TermSnapshot> snapshotTerms() {
+        List<TermSnapshot> terms = new ArrayList<>(termCounters.size());
+        termCounters.forEach((term, counter) -> terms.add(new TermSnapshot(term, counter.count.sum(), counter.error,
+                counter.lastSearchedMillis.get(), counter.lastMinute.raw(), counter.lastHour.raw(), counter.lastDays.raw())));
+        return terms;
+    }
+
+    /**
+     * Sustituye el estado por el de una instantánea. Solo debe llamarse al arrancar, antes de recibir búsquedas.
+     */
+    void restore(long evicted, List<TermSnapshot> terms) {
+        termCounters.clear();
+        evictedCount = evicted;
+        maintenanceLock.lock();
+        try {
+            ranking.clear();
+            pendingRanking.clear();
+        } finally {
+            maintenanceLock.unlock();
+        }
+        for (TermSnapshot snapshot : terms) {
+            TermCounter counter = new TermCounter(snapshot.term(), snapshot.error());
+            counter.count.add(snapshot.count() - snapshot.error());
+            counter.lastSearchedMillis.set(snapshot.lastSearchedMillis());
+            counter.lastMinute.restore(snapshot.lastMinute());
+            counter.lastHour.restore(snapshot.lastHour());
+            counter.lastDays.restore(snapshot.lastDays());
+            termCounters.put(snapshot.term(), counter);
+            counter.pending.set(true);
+            pendingRanking.add(counter);
+        }
+        pruneCount++;
+    }
+
     // --- MÉTODOS PARA OBTENER ESTADÍSTICAS ---
 
     /**
@@ -50,17 +293,26 @@ public class StatsService {
      * Devuelve una copia inmutable para proteger los datos internos.
      */
     public Map<String, Integer> getSearchCounts() {
-        return Collections.unmodifiableMap(new HashMap<>(searchCounts));
+        Map<String, Integer> counts = new HashMap<>();
+        termCounters.forEach((term, counter) -> counts.put(term, counter.count()));
+        return Collections.unmodifiableMap(counts);
     }
 
     /**
      * Obtiene estadísticas completas de búsqueda
      */
     public SearchStats getSearchStats() {
+        Map<String, LocalDateTime> lastSearches = new HashMap<>();
+        termCounters.forEach((term, counter) -> lastSearches.put(term, counter.lastSearched()));
+        Map<String, Set<String>> related = new HashMap<>();
+        for (String term : relatedSearches.terms()) {
+            Set<String> neighbors = getRelatedSearches(term);
+            if (!neighbors.isEmpty()) related.put(term, neighbors);
+        }
         return new SearchStats(
-                Collections.unmodifiableMap(new HashMap<>(searchCounts)),
-                Collections.unmodifiableMap(new HashMap<>(lastSearchTimestamps)),
-                Collections.unmodifiableMap(new HashMap<>(relatedSearches))
+                getSearchCounts(),
+                Collections.unmodifiableMap(lastSearches),
+                Collections.unmodifiableMap(related)
         );
     }
 
@@ -69,27 +321,132 @@ public class StatsService {
      * @param limit Número máximo de resultados (opcional)
      */
     public List<SearchTermCount> getTopSearches(Integer limit) {
-        return searchCounts.entrySet().stream()
-                .sorted(Map.Entry.<String, Integer>comparingByValue().reversed())
-                .limit(limit != null && limit > 0 ? limit : Long.MAX_VALUE) // Lógica de límite mejorada
-                .map(entry -> new SearchTermCount(
-                        entry.getKey(),
-                        entry.getValue(),
-                        lastSearchTimestamps.get(entry.getKey())))
-                .collect(Collectors.toList());
+        List<SearchTermCount> top = new ArrayList<>();
+        maintenanceLock.lock();
+        try {
+            applyPendingRanking();
+            int size = limit != null && limit > 0 ? Math.min(limit, ranking.size()) : ranking.size(); // Lógica de límite mejorada
+            Iterator<RankedTerm> ranked = ranking.iterator();
+            for (int i = 0; i < size; i++) {
+                TermCounter counter = ranked.next().counter();
+                top.add(new SearchTermCount(counter.term, counter.count(), counter.lastSearched(), counter.error));
+            }
+        } finally {
+            maintenanceLock.unlock();
+        }
+        // Pueden haber llegado búsquedas mientras tanto; se reordenan los K con las cuentas actuales
+        top.sort(Comparator.comparingInt(SearchTermCount::getCount).reversed());
+        return top;
+    }
+
+    /**
+     * Términos que más han crecido en la ventana: el último minuto frente al ritmo de la última hora,
+     * la última hora frente al de las últimas 24 h, o las últimas 24 h frente a las 24 h anteriores.
+     */
+    public List<TrendingTerm> getTrending(Window window, int limit) {
+        long now = System.currentTimeMillis();
+        List<TrendingTerm> trending = new ArrayList<>();
+        termCounters.forEach((term, counter) -> {
+            long recent;
+            double baseline;
+            switch (window) {
+                case MINUTE -> {
+                    recent = counter.lastMinute.sum(now, 6, 0);
+                    baseline = counter.lastHour.sum(now, 60, 0) / 60.0;
+                }
+                case HOUR -> {
+                    recent = counter.lastHour.sum(now, 60, 0);
+                    baseline = counter.lastDays.sum(now, 24, 0) / 24.0;
+                }
+                default -> {
+                    recent = counter.lastDays.sum(now, 24, 0);
+                    baseline = counter.lastDays.sum(now, 24, 24);
+                }
+            }
+            if (recent >= MIN_TRENDING_COUNT) {
+                trending.add(new TrendingTerm(term, recent, baseline, (recent + 1) / (baseline + 1)));
+            }
+        });
+        trending.sort(Comparator.comparingDouble(TrendingTerm::growth).reversed()
+                .thenComparing(Comparator.comparingLong(TrendingTerm::recentCount).reversed()));
+        return trending.size() > limit ? List.copyOf(trending.subList(0, limit)) : trending;
+    }
+
+    /**
+     * Número de términos distintos que se están contando ahora mismo.
+     */
+    public int getTrackedTerms() {
+        return termCounters.size();
     }
 
     /**
-     * Obtiene términos relacionados a una búsqueda
+     * Obtiene términos relacionados a una búsqueda, del más al menos relacionado
      */
     public Set<String> getRelatedSearches(String term) {
-        return relatedSearches.getOrDefault(normalizeTerm(term), Collections.emptySet());
+        Set<String> related = new LinkedHashSet<>();
+        getRelatedTerms(term, Integer.MAX_VALUE).forEach(entry -> related.add(entry.term()));
+        return Collections.unmodifiableSet(related);
     }
 
     /**
-     * Normaliza términos de búsqueda
+     * Términos relacionados con su peso de coocurrencia (ya con el decaimiento aplicado), de más a menos fuerte.
      */
-    private String normalizeTerm(String term) {
+    public List<RelatedTerm> getRelatedTerms(String term, int limit) {
+        return relatedSearches.related(normalizeTerm(term), limit, System.currentTimeMillis());
+    }
+
+    /**
+     * Descarta los términos menos buscados hasta volver a {@code maxTerms}. Si otro hilo ya está
+     * podando, no espera: el margen absorbe los términos que entren mientras tanto.
+     */
+    private void prune() {
+        if (!maintenanceLock.tryLock()) {
+            return;
+        }
+        try {
+            applyPendingRanking();
+            long maxEvicted = evictedCount;
+            while (ranking.size() > maxTerms) {
+                RankedTerm entry = ranking.pollLast();
+                entry.counter().ranked = null;
+                if (termCounters.remove(entry.term(), entry.counter())) {
+                    relatedSearches.remove(entry.term());
+                    maxEvicted = Math.max(maxEvicted, entry.rankedCount());
+                }
+            }
+            evictedCount = maxEvicted;
+            pruneCount++;
+        } finally {
+            maintenanceLock.unlock();
+        }
+    }
+
+    /**
+     * Recoloca en el árbol los términos buscados desde la última vez. Requiere maintenanceLock.
+     */
+    private void applyPendingRanking() {
+        TermCounter counter;
+        while ((counter = pendingRanking.poll()) != null) {
+            // Se desmarca antes de leer la cuenta: una búsqueda posterior lo volverá a encolar
+            counter.pending.set(false);
+            if (counter.ranked != null) {
+                ranking.remove(counter.ranked);
+                counter.ranked = null;
+            }
+            // Descartado por una poda mientras esperaba
+            if (termCounters.get(counter.term) != counter) {
+                continue;
+            }
+            counter.ranked = new RankedTerm(counter.term, counter, counter.count.sum());
+            ranking.add(counter.ranked);
+        }
+    }
+
+    /**
+     * Normaliza términos de búsqueda. Es también la clave con la que se agrupan
+     * las búsquedas idénticas en curso.
+     */
+    public static String normalizeTerm(String term) {
         return term.toLowerCase().trim();
     }
 
@@ -121,16 +478,24 @@ public class StatsService {
         private final String term;
         private final int count;
         private final LocalDateTime lastSearched;
+        // Cuánto puede sobrestimar count; 0 si la cuenta es exacta
+        private final long error;
 
         public SearchTermCount(String term, int count, LocalDateTime lastSearched) {
+            this(term, count, lastSearched, 0);
+        }
+
+        public SearchTermCount(String term, int count, LocalDateTime lastSearched, long error) {
             this.term = term;
             this.count = count;
             this.lastSearched = lastSearched;
+            this.error = error;
         }
 
         // Getters
         public String getTerm() { return term; }
         public int getCount() { return count; }
         public LocalDateTime getLastSearched() { return lastSearched; }
+        public long getError() { return error; }
     }
 }
\ No newline at end of file
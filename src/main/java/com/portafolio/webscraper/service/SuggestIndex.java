@@ -0,0 +1,139 @@
+package com.portafolio.webscraper.services;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+
+/**
+ * Índice de prefijos inmutable: los términos ordenados en un array con su peso en otro array paralelo.
+ * Un prefijo delimita un rango contiguo (dos búsquedas binarias); en prefijos largos el rango es corto y
+ * se recorre, y para los prefijos de uno o dos caracteres, cuyo rango puede ser casi todo el índice, se
+ * guardan precalculados los {@code topK} términos de más peso.
+ */
+final class SuggestIndex {
+
+    static final SuggestIndex EMPTY = build(new String[0], new long[0], 1);
+
+    private static final int PRECOMPUTED_PREFIX_LENGTH = 2;
+
+    private final String[] terms;
+    private final long[] weights;
+    private final int topK;
+    private final Map<String, int[]> shortPrefixes;
+
+    private SuggestIndex(String[] terms, long[] weights, int topK, Map<String, int[]> shortPrefixes) {
+        this.terms = terms;
+        this.weights = weights;
+        this.topK = topK;
+        this.shortPrefixes = shortPrefixes;
+    }
+
+    /**
+     * @param sortedTerms términos en orden lexicográfico, sin repetir
+     */
+    static SuggestIndex build(String[] sortedTerms, long[] weights, int topK) {
+        Map<String, int[]> shortPrefixes = new HashMap<>();
+        Map<String, Integer> sizes = new HashMap<>();
+        for (int i = 0; i < sortedTerms.length; i++) {
+            for (int length = 1; length <= Math.min(PRECOMPUTED_PREFIX_LENGTH, sortedTerms[i].length()); length++) {
+                String prefix = sortedTerms[i].substring(0, length);
+                int[] top = shortPrefixes.computeIfAbsent(prefix, k -> new int[topK]);
+                sizes.put(prefix, insert(top, sizes.getOrDefault(prefix, 0), i, weights));
+            }
+        }
+        sizes.forEach((prefix, size) -> shortPrefixes.put(prefix, Arrays.copyOf(shortPrefixes.get(prefix), size)));
+        return new SuggestIndex(sortedTerms, weights, topK, shortPrefixes);
+    }
+
+    /**
+     * Nuevo índice con los pesos de {@code updates} aplicados (peso 0: se quita el término).
+     * Es una mezcla de dos listas ordenadas, O(n + cambios).
+     */
+    SuggestIndex merge(SortedMap<String, Long> updates) {
+        List<String> mergedTerms = new ArrayList<>(terms.length + updates.size());
+        List<Long> mergedWeights = new ArrayList<>(terms.length + updates.size());
+        int i = 0;
+        for (Map.Entry<String, Long> update : updates.entrySet()) {
+            while (i < terms.length && terms[i].compareTo(update.getKey()) < 0) {
+                mergedTerms.add(terms[i]);
+                mergedWeights.add(weights[i++]);
+            }
+            if (i < terms.length && terms[i].equals(update.getKey())) {
+                i++;
+            }
+            if (update.getValue() > 0) {
+                mergedTerms.add(update.getKey());
+                mergedWeights.add(update.getValue());
+            }
+        }
+        while (i < terms.length) {
+            mergedTerms.add(terms[i]);
+            mergedWeights.add(weights[i++]);
+        }
+        return build(mergedTerms.toArray(new String[0]),
+                mergedWeights.stream().mapToLong(Long::longValue).toArray(), topK);
+    }
+
+    List<SearchSuggester.Suggestion> suggest(String prefix, int limit) {
+        int[] top = prefix.length() <= PRECOMPUTED_PREFIX_LENGTH ? shortPrefixes.get(prefix) : scan(prefix);
+        if (top == null) {
+            return List.of();
+        }
+        List<SearchSuggester.Suggestion> suggestions = new ArrayList<>(Math.min(limit, top.length));
+        for (int i = 0; i < Math.min(limit, top.length); i++) {
+            suggestions.add(new SearchSuggester.Suggestion(terms[top[i]], weights[top[i]]));
+        }
+        return suggestions;
+    }
+
+    int size() {
+        return terms.length;
+    }
+
+    boolean contains(String term) {
+        int position = lowerBound(term);
+        return position < terms.length && terms[position].equals(term);
+    }
+
+    private int[] scan(String prefix) {
+        int from = lowerBound(prefix);
+        int to = lowerBound(prefix + Character.MAX_VALUE);
+        int[] top = new int[topK];
+        int size = 0;
+        for (int i = from; i < to; i++) {
+            size = insert(top, size, i, weights);
+        }
+        return Arrays.copyOf(top, size);
+    }
+
+    private int lowerBound(String key) {
+        int low = 0;
+        int high = terms.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (terms[mid].compareTo(key) < 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    /** Inserta el índice {@code candidate} en {@code top}, ordenado por peso descendente; devuelve el nuevo tamaño. */
+    private static int insert(int[] top, int size, int candidate, long[] weights) {
+        if (size == top.length && weights[top[size - 1]] >= weights[candidate]) {
+            return size;
+        }
+        int position = Math.min(size, top.length - 1);
+        while (position > 0 && weights[top[position - 1]] < weights[candidate]) {
+            top[position] = top[position - 1];
+            position--;
+        }
+        top[position] = candidate;
+        return Math.min(size + 1, top.length);
+    }
+}
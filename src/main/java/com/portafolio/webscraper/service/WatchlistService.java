@@ -0,0 +1,240 @@
+package com.portafolio.webscraper.service;
+
+import com.portafolio.webscraper.model.PriceWatch;
+import com.portafolio.webscraper.model.ProductInfo;
+import com.portafolio.webscraper.repository.PriceWatchRepository;
+import com.portafolio.webscraper.services.StatsService;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+/**
+ * Avisos de bajada de precio.
+ * Los avisos se guardan en H2 y se indexan en memoria por producto y por término de búsqueda, así que
+ * cada producto observado solo evalúa las reglas de su {@code productKey} y las del término con el que
+ * se encontró. Un aviso se dispara una vez por producto al bajar del objetivo y solo vuelve a dispararse
+ * si el precio baja todavía más o si antes ha vuelto a superar el objetivo.
+ * Las alertas se entregan en {@code taskExecutor}, fuera del hilo del scraping, y solo a los suscriptores
+ * del dueño del aviso.
+ */
+@Service
+public class WatchlistService {
+
+    private static final Logger logger = LoggerFactory.getLogger(WatchlistService.class);
+
+    public record PriceAlert(long watchId, String productKey, String productName, String storeName,
+                             String productUrl, double price, String currency, double targetPrice,
+                             Instant triggeredAt) {
+    }
+
+    public record AlertStats(int watches, long evaluated, long triggered, int subscribers) {
+    }
+
+    /** Regla en memoria: el objetivo del aviso y el último precio avisado de cada producto. */
+    private static final class Rule {
+        private final long watchId;
+        private final String owner;
+        private final double targetPrice;
+        // Se borra la entrada cuando el precio vuelve a superar el objetivo
+        private final Map<String, Double> alerted = new ConcurrentHashMap<>();
+
+        private Rule(long watchId, String owner, double targetPrice) {
+            this.watchId = watchId;
+            this.owner = owner;
+            this.targetPrice = targetPrice;
+        }
+    }
+
+    /** Alerta pendiente de entregar a los suscriptores de {@code owner}. */
+    private record Delivery(String owner, PriceAlert alert) {
+    }
+
+    private final PriceWatchRepository repository;
+    private final Executor taskExecutor;
+    private final Map<String, Map<Long, Rule>> rulesByProduct = new ConcurrentHashMap<>();
+    private final Map<String, Map<Long, Rule>> rulesByQuery = new ConcurrentHashMap<>();
+    private final Map<String, List<Consumer<PriceAlert>>> subscribers = new ConcurrentHashMap<>();
+
+    private final LongAdder evaluated = new LongAdder();
+    private final LongAdder triggered = new LongAdder();
+
+    public WatchlistService(PriceWatchRepository repository, @Qualifier("taskExecutor") Executor taskExecutor) {
+        this.repository = repository;
+        this.taskExecutor = taskExecutor;
+    }
+
+    @PostConstruct
+    public void loadRules() {
+        try {
+            repository.findAll().forEach(this::index);
+        } catch (DataAccessException e) {
+            logger.warn("No se pudieron cargar los avisos de precio: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Crea un aviso de {@code owner} para un producto o para un término de búsqueda (exactamente uno de los dos).
+     *
+     * @throws IllegalArgumentException si faltan o sobran datos o el precio no es positivo
+     */
+    public PriceWatch create(String owner, String productKey, String query, Double targetPrice) {
+        boolean hasProduct = productKey != null && !productKey.isBlank();
+        boolean hasQuery = query != null && !query.isBlank();
+        if (hasProduct == hasQuery) {
+            throw new IllegalArgumentException("Indica productKey o query, pero no ambos");
+        }
+        if (targetPrice == null || !(targetPrice > 0)) {
+            throw new IllegalArgumentException("targetPrice debe ser mayor que 0");
+        }
+        PriceWatch watch = new PriceWatch();
+        watch.setOwner(owner);
+        watch.setProductKey(hasProduct ? productKey.trim() : null);
+        watch.setQuery(hasQuery ? StatsService.normalizeTerm(query) : null);
+        watch.setTargetPrice(targetPrice);
+        watch.setCreatedAt(Instant.now());
+        PriceWatch saved = repository.save(watch);
+        index(saved);
+        return saved;
+    }
+
+    public List<PriceWatch> list(String owner) {
+        return repository.findByOwner(owner, Sort.by("id"));
+    }
+
+    /**
+     * @return false si el aviso no existía o es de otro usuario
+     */
+    public boolean delete(String owner, long id) {
+        return repository.findById(id).filter(watch -> Objects.equals(watch.getOwner(), owner)).map(watch -> {
+            repository.delete(watch);
+            Map<Long, Rule> rules = watch.getProductKey() != null
+                    ? rulesByProduct.get(watch.getProductKey())
+                    : rulesByQuery.get(watch.getQuery());
+            if (rules != null) {
+                rules.remove(id);
+            }
+            return true;
+        }).orElse(false);
+    }
+
+    /**
+     * Evalúa los productos obtenidos al buscar {@code term} contra los avisos que les afectan.
+     * Se puede llamar desde cualquier hilo.
+     */
+    public void evaluate(String term, Collection<ProductInfo> products) {
+        if (rulesByProduct.isEmpty() && rulesByQuery.isEmpty()) {
+            return;
+        }
+        Map<Long, Rule> queryRules = rulesByQuery.get(StatsService.normalizeTerm(term));
+        List<Delivery> alerts = new ArrayList<>();
+        for (ProductInfo product : products) {
+            if (product.getProductUrl() == null || product.getCurrentPrice() == null) continue;
+            String key = product.getProductKey();
+            Map<Long, Rule> productRules = rulesByProduct.get(key);
+            if (productRules != null) {
+                productRules.values().forEach(rule -> check(rule, key, product, alerts));
+            }
+            if (queryRules != null) {
+                queryRules.values().forEach(rule -> check(rule, key, product, alerts));
+            }
+        }
+        if (!alerts.isEmpty()) {
+            triggered.add(alerts.size());
+            publish(alerts);
+        }
+    }
+
+    /**
+     * Registra un receptor de las alertas de los avisos de {@code owner}.
+     *
+     * @return acción que lo da de baja
+     */
+    public Runnable subscribe(String owner, Consumer<PriceAlert> subscriber) {
+        subscribers.computeIfAbsent(owner, o -> new CopyOnWriteArrayList<>()).add(subscriber);
+        return () -> subscribers.computeIfPresent(owner, (o, list) -> {
+            list.remove(subscriber);
+            return list.isEmpty() ? null : list;
+        });
+    }
+
+    public AlertStats getStats() {
+        int watches = 0;
+        for (Map<Long, Rule> rules : rulesByProduct.values()) watches += rules.size();
+        for (Map<Long, Rule> rules : rulesByQuery.values()) watches += rules.size();
+        int listening = 0;
+        for (List<Consumer<PriceAlert>> list : subscribers.values()) listening += list.size();
+        return new AlertStats(watches, evaluated.sum(), triggered.sum(), listening);
+    }
+
+    private void index(PriceWatch watch) {
+        Map<String, Map<Long, Rule>> index = watch.getProductKey() != null ? rulesByProduct : rulesByQuery;
+        String key = watch.getProductKey() != null ? watch.getProductKey() : watch.getQuery();
+        index.computeIfAbsent(key, k -> new ConcurrentHashMap<>())
+                .put(watch.getId(), new Rule(watch.getId(), watch.getOwner(), watch.getTargetPrice()));
+    }
+
+    private void check(Rule rule, String productKey, ProductInfo product, List<Delivery> alerts) {
+        evaluated.increment();
+        double price = product.getCurrentPrice();
+        if (price > rule.targetPrice) {
+            rule.alerted.remove(productKey);
+            return;
+        }
+        if (!product.isAvailable()) {
+            return;
+        }
+        boolean[] fire = new boolean[1];
+        rule.alerted.compute(productKey, (k, previous) -> {
+            fire[0] = previous == null || price < previous;
+            return fire[0] ? price : previous;
+        });
+        if (fire[0]) {
+            alerts.add(new Delivery(rule.owner, new PriceAlert(rule.watchId, productKey, product.getName(),
+                    product.getStoreName(), product.getProductUrl(), price, product.getCurrency(), rule.targetPrice,
+                    Instant.now())));
+        }
+    }
+
+    private void publish(List<Delivery> alerts) {
+        if (subscribers.isEmpty()) {
+            return;
+        }
+        try {
+            taskExecutor.execute(() -> {
+                for (Delivery delivery : alerts) {
+                    // Los avisos sin dueño (anteriores a los usuarios) no se entregan a nadie
+                    List<Consumer<PriceAlert>> recipients =
+                            delivery.owner() != null ? subscribers.get(delivery.owner()) : null;
+                    if (recipients == null) continue;
+                    for (Consumer<PriceAlert> subscriber : recipients) {
+                        try {
+                            subscriber.accept(delivery.alert());
+                        } catch (RuntimeException e) {
+                            logger.debug("No se pudo entregar la alerta {}: {}", delivery.alert().watchId(),
+                                    e.getMessage());
+                        }
+                    }
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            logger.warn("Ejecutor saturado: se descartan {} alertas de precio", alerts.size());
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package com.portafolio.webscraper.services;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Contador por intervalos de tiempo sobre un anillo de cubos de tamaño fijo.
+ * Cada cubo guarda en un solo long el número del intervalo al que pertenece (bits altos) y su cuenta
+ * (bits bajos), así que sumar o reciclar un cubo es un único CAS y no hace falta ningún cerrojo.
+ * Los cubos de intervalos ya pasados se reutilizan al llegar la siguiente vuelta del anillo.
+ */
+final class WindowCounter {
+
+    private static final int COUNT_BITS = 24;
+    private static final long COUNT_MASK = (1L << COUNT_BITS) - 1;
+
+    private final AtomicLongArray buckets;
+    private final long bucketMillis;
+
+    WindowCounter(int buckets, long bucketMillis) {
+        this.buckets = new AtomicLongArray(buckets);
+        this.bucketMillis = bucketMillis;
+    }
+
+    void increment(long nowMillis) {
+        long interval = nowMillis / bucketMillis;
+        int slot = (int) (interval % buckets.length());
+        while (true) {
+            long current = buckets.get(slot);
+            long next;
+            if (current >>> COUNT_BITS == interval) {
+                if ((current & COUNT_MASK) == COUNT_MASK) return; // Saturado
+                next = current + 1;
+            } else if (current >>> COUNT_BITS > interval) {
+                return; // Un hilo con un reloj más adelantado ya recicló el cubo
+            } else {
+                next = (interval << COUNT_BITS) | 1;
+            }
+            if (buckets.compareAndSet(slot, current, next)) return;
+        }
+    }
+
+    /**
+     * Suma de los {@code count} intervalos que terminan {@code skip} intervalos antes del actual
+     * (skip = 0 incluye el intervalo en curso).
+     */
+    long sum(long nowMillis, int count, int skip) {
+        long newest = nowMillis / bucketMillis - skip;
+        long oldest = newest - count + 1;
+        long total = 0;
+        for (int i = 0; i < buckets.length(); i++) {
+            long bucket = buckets.get(i);
+            long interval = bucket >>> COUNT_BITS;
+            if (interval >= oldest && interval <= newest) {
+                total += bucket & COUNT_MASK;
+            }
+        }
+        return total;
+    }
+
+    /** Copia de los cubos en bruto, para las instantáneas. */
+    long[] raw() {
+        long[] raw = new long[buckets.length()];
+        for (int i = 0; i < raw.length; i++) {
+            raw[i] = buckets.get(i);
+        }
+        return raw;
+    }
+
+    void restore(long[] raw) {
+        for (int i = 0; i < Math.min(raw.length, buckets.length()); i++) {
+            buckets.set(i, raw[i]);
+        }
+    }
+}
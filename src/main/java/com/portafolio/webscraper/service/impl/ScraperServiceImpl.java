@@ -2,34 +2,92 @@ package com.portafolio.webscraper.service.impl;
 
 import com.portafolio.webscraper.model.ProductInfo;
 import com.portafolio.webscraper.service.ScraperService;
+import com.portafolio.webscraper.service.PersistentProductCache;
+import com.portafolio.webscraper.service.SearchOrchestrator;
+import com.portafolio.webscraper.service.SearchResultCache;
+import com.portafolio.webscraper.services.StatsService;
 import org.springframework.stereotype.Service;
 
-import java.time.LocalDateTime;
-import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
 
 @Service
 public class ScraperServiceImpl implements ScraperService {
 
+    private final SearchOrchestrator searchOrchestrator;
+    private final StatsService statsService;
+    private final SearchResultCache searchCache;
+    private final PersistentProductCache productCache;
+
+    public ScraperServiceImpl(SearchOrchestrator searchOrchestrator, StatsService statsService,
+                              SearchResultCache searchCache, PersistentProductCache productCache) {
+        this.searchOrchestrator = searchOrchestrator;
+        this.statsService = statsService;
+        this.searchCache = searchCache;
+        this.productCache = productCache;
+    }
+
     @Override
     public List<ProductInfo> searchProducts(String productName) {
-        List<ProductInfo> products = new ArrayList<>();
-
-        ProductInfo p1 = ProductInfo.builder()
-                .name(productName + " Ejemplo 1")
-                .currentPrice(1999.00)  // Usando el campo correcto (Double)
-                .originalPrice(2199.00) // Precio original si hay descuento
-                .currency("$")          // Símbolo de moneda
-                .storeName("Amazon")
-                .available(true)
-                .rating(4.5)
-                .imageUrl("https://via.placeholder.com/300x200")
-                .productUrl("#")
-                .lastUpdated(LocalDateTime.now())
-                .build();
-
-        products.add(p1);
+        statsService.recordSearch(productName);
+        String term = productName.trim();
+        List<ProductInfo> cached = searchCache.getIfPresent(term, () -> refreshSearch(term));
+        return cached != null ? cached : loadSearch(term);
+    }
+
+    /**
+     * Si la búsqueda está en alguna caché se entregan de golpe los productos guardados; si no,
+     * se hace en streaming y el resultado completo se guarda al terminar.
+     */
+    @Override
+    public CompletableFuture<List<ProductInfo>> streamProducts(String productName, Consumer<ProductInfo> onProduct) {
+        statsService.recordSearch(productName);
+        String term = productName.trim();
+        List<ProductInfo> cached = searchCache.getIfPresent(term, () -> refreshSearch(term));
+        if (cached == null) {
+            cached = productCache.findSearch(term).map(stored -> promote(term, stored)).orElse(null);
+        }
+        if (cached != null) {
+            cached.forEach(onProduct);
+            return CompletableFuture.completedFuture(cached);
+        }
+        return searchOrchestrator.searchProgressively(term, onProduct)
+                .thenApply(products -> {
+                    searchCache.put(term, products);
+                    productCache.saveSearch(term, products);
+                    return products;
+                });
+    }
 
+    @Override
+    public List<ProductInfo> refreshSearch(String productName) {
+        return scrapeAndStore(productName.trim(), true);
+    }
+
+    /**
+     * Segundo nivel: la caché persistente; si no tiene el término vigente, se hace el scraping
+     * (las fichas aún vigentes en la caché de productos no se vuelven a descargar).
+     */
+    private List<ProductInfo> loadSearch(String term) {
+        return productCache.findSearch(term)
+                .map(stored -> promote(term, stored))
+                .orElseGet(() -> scrapeAndStore(term, false));
+    }
+
+    private List<ProductInfo> scrapeAndStore(String term, boolean revalidate) {
+        List<ProductInfo> products = searchOrchestrator.search(term, revalidate);
+        searchCache.put(term, products);
+        productCache.saveSearch(term, products);
         return products;
     }
-}
\ No newline at end of file
+
+    /**
+     * Sube al primer nivel una búsqueda leída de la caché persistente con la fecha en que se hizo, de modo
+     * que la revalidación en segundo plano vuelve a las tiendas en lugar de releer la misma fila.
+     */
+    private List<ProductInfo> promote(String term, PersistentProductCache.StoredSearch stored) {
+        searchCache.put(term, stored.products(), stored.storedAt(), () -> refreshSearch(term));
+        return stored.products();
+    }
+}
@@ -63,6 +63,29 @@ document.addEventListener('DOMContentLoaded', () => {
     if (loadingSpinner) loadingSpinner.hidden = true;
   };
 
+  const createProductCard = (product) => {
+    const productCardClone = productCardTemplate.content.cloneNode(true);
+
+    const cardWrapper = productCardClone.querySelector('.product-card-wrapper');
+    const cardImg = productCardClone.querySelector('.card-img-top');
+    const cardTitle = productCardClone.querySelector('.card-title');
+    const storeName = productCardClone.querySelector('.store-name strong');
+    const cardPrice = productCardClone.querySelector('.card-price');
+    const viewOfferLink = productCardClone.querySelector('.btn.stretched-link');
+
+    if (cardImg) {
+      cardImg.src = product.imageUrl || 'https://via.placeholder.com/250x180?text=Imagen+No+Disp.';
+      cardImg.alt = product.name || 'Producto';
+    }
+
+    if (cardTitle) cardTitle.textContent = product.name || 'Nombre de Producto Desconocido';
+    if (storeName) storeName.textContent = product.storeName || product.store || 'Tienda Desconocida';
+    if (cardPrice) cardPrice.textContent = product.formattedPrice || product.price || 'Precio N/A';
+    if (viewOfferLink) viewOfferLink.href = product.productUrl || '#';
+
+    return cardWrapper;
+  };
+
   const renderProducts = (products) => {
     resultsGrid.innerHTML = '';
 
@@ -72,28 +95,7 @@ document.addEventListener('DOMContentLoaded', () => {
       return;
     }
 
-    products.forEach(product => {
-      const productCardClone = productCardTemplate.content.cloneNode(true);
-
-      const cardWrapper = productCardClone.querySelector('.product-card-wrapper');
-      const cardImg = productCardClone.querySelector('.card-img-top');
-      const cardTitle = productCardClone.querySelector('.card-title');
-      const storeName = productCardClone.querySelector('.store-name strong');
-      const cardPrice = productCardClone.querySelector('.card-price');
-      const viewOfferLink = productCardClone.querySelector('.btn.stretched-link');
-
-      if (cardImg) {
-        cardImg.src = product.imageUrl || 'https://via.placeholder.com/250x180?text=Imagen+No+Disp.';
-        cardImg.alt = product.name || 'Producto';
-      }
-
-      if (cardTitle) cardTitle.textContent = product.name || 'Nombre de Producto Desconocido';
-      if (storeName) storeName.textContent = product.store || 'Tienda Desconocida';
-      if (cardPrice) cardPrice.textContent = product.price || 'Precio N/A';
-      if (viewOfferLink) viewOfferLink.href = product.productUrl || '#';
-
-      resultsGrid.appendChild(cardWrapper);
-    });
+    products.forEach(product => resultsGrid.appendChild(createProductCard(product)));
 
     showMessage('success', `Se encontraron ${products.length} resultados.`);
     resultsCountDisplay.textContent = `${products.length} resultados`;
@@ -119,6 +121,11 @@ document.addEventListener('DOMContentLoaded', () => {
     searchForm.classList.remove('was-validated');
     showLoading();
 
+    if (window.EventSource) {
+      streamSearch(query);
+      return;
+    }
+
     try {
       const response = await fetch(`http://localhost:8080/api/products/search?name=${encodeURIComponent(query)}`);
 
@@ -151,6 +158,51 @@ document.addEventListener('DOMContentLoaded', () => {
     }
   };
 
+  // Búsqueda en streaming: cada tienda se pinta en cuanto responde.
+  let activeStream = null;
+
+  const streamSearch = (query) => {
+    if (activeStream) activeStream.close();
+
+    const source = new EventSource(`/api/products/search/stream?name=${encodeURIComponent(query)}`);
+    activeStream = source;
+    let received = 0;
+
+    source.addEventListener('product', (event) => {
+      const product = JSON.parse(event.data);
+      if (received === 0) hideLoading();
+      received++;
+      resultsGrid.appendChild(createProductCard(product));
+      resultsCountDisplay.textContent = `${received} resultados`;
+    });
+
+    source.addEventListener('recommendation', (event) => {
+      const best = JSON.parse(event.data);
+      const bestStore = best.storeName ? ` en ${best.storeName}` : '';
+      showMessage('success', `Se encontraron ${received} resultados. Mejor opción: ${best.name}${bestStore}.`);
+    });
+
+    source.addEventListener('done', () => {
+      source.close();
+      activeStream = null;
+      hideLoading();
+      if (received === 0) {
+        showMessage('info', `No se encontraron productos para "${query}".`);
+        resultsCountDisplay.textContent = '0 resultados';
+      }
+    });
+
+    source.onerror = () => {
+      // EventSource reintenta por defecto; una búsqueda no debe repetirse.
+      source.close();
+      activeStream = null;
+      hideLoading();
+      if (received === 0) {
+        showMessage('error', 'Error en la búsqueda: se perdió la conexión con el servidor.');
+      }
+    };
+  };
+
   // --- 4. Asignar Eventos ---
 
   searchForm.addEventListener('submit', handleSearch);
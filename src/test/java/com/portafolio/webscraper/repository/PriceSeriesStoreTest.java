@@ -0,0 +1,143 @@
+package com.portafolio.webscraper.repository;
+
+import com.portafolio.webscraper.repository.PriceSeriesStore.DailyRollup;
+import com.portafolio.webscraper.repository.PriceSeriesStore.Observation;
+import com.portafolio.webscraper.repository.PriceSeriesStore.PricePoint;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PriceSeriesStoreTest {
+
+    private static final String KEY = "amazon:B0TEST";
+    // 2026-03-10T00:00:00Z
+    private static final Instant DAY_START = Instant.ofEpochSecond(1_773_100_800L);
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void roundTripsIrregularIntervalsAndPriceDropsAcrossAReopen() throws IOException {
+        List<Observation> written = irregularSeries();
+        try (PriceSeriesStore store = new PriceSeriesStore(dir)) {
+            store.append(written);
+            assertThat(store.range(KEY, Instant.EPOCH, Instant.MAX, 1000)).isEqualTo(points(written));
+        }
+        try (PriceSeriesStore store = new PriceSeriesStore(dir)) {
+            assertThat(store.range(KEY, Instant.EPOCH, Instant.MAX, 1000)).isEqualTo(points(written));
+            assertThat(store.getStats().points()).isEqualTo(written.size());
+        }
+    }
+
+    @Test
+    void splitsChunksByDayAndCurrencyAndRollsUpEachCurrencySeparately() throws IOException {
+        try (PriceSeriesStore store = new PriceSeriesStore(dir)) {
+            store.append(List.of(
+                    observation(0, 10.00, "$", true),
+                    observation(60, 30.00, "$", true),
+                    observation(120, 9.00, "€", true),
+                    observation(86_400 + 5, 12.50, "$", false)));
+
+            List<DailyRollup> rollups = store.dailyRollups(KEY, LocalDate.of(2026, 3, 10), LocalDate.of(2026, 3, 11));
+
+            assertThat(rollups).containsExactly(
+                    new DailyRollup(LocalDate.of(2026, 3, 10), 10.00, 20.00, 30.00, 2, "$"),
+                    new DailyRollup(LocalDate.of(2026, 3, 10), 9.00, 9.00, 9.00, 1, "€"),
+                    new DailyRollup(LocalDate.of(2026, 3, 11), 12.50, 12.50, 12.50, 1, "$"));
+        }
+    }
+
+    @Test
+    void keepsTheSeriesMonotonicWhenAnObservationArrivesLate() throws IOException {
+        try (PriceSeriesStore store = new PriceSeriesStore(dir)) {
+            store.append(List.of(observation(100, 5.00, "$", true), observation(40, 6.00, "$", true)));
+            store.sealOpenChunks();
+            store.append(List.of(observation(10, 7.00, "$", true)));
+
+            assertThat(store.range(KEY, Instant.EPOCH, Instant.MAX, 10))
+                    .extracting(PricePoint::observedAt)
+                    .containsOnly(DAY_START.plusSeconds(100));
+        }
+    }
+
+    @Test
+    void recoversOpenChunksFromTheLogAfterAnAbruptStop() throws IOException {
+        List<Observation> written = irregularSeries();
+        PriceSeriesStore crashed = new PriceSeriesStore(dir);
+        crashed.append(written.subList(0, 10));
+        crashed.sealOpenChunks();
+        crashed.append(written.subList(10, written.size()));
+        // Sin close(): los puntos posteriores al último sellado solo están en el diario
+
+        try (PriceSeriesStore store = new PriceSeriesStore(dir)) {
+            assertThat(store.range(KEY, Instant.EPOCH, Instant.MAX, 1000)).isEqualTo(points(written));
+        }
+    }
+
+    @Test
+    void doesNotDuplicatePointsWhenTheLogWasNotResetAfterSealing() throws IOException {
+        List<Observation> written = irregularSeries();
+        Path log = dir.resolve("prices.open");
+        Path before = dir.resolve("prices.open.before");
+        PriceSeriesStore crashed = new PriceSeriesStore(dir);
+        crashed.append(written);
+        Files.copy(log, before);
+        crashed.sealOpenChunks();
+        // Se corta entre escribir los bloques y vaciar el diario
+        Files.copy(before, log, StandardCopyOption.REPLACE_EXISTING);
+
+        try (PriceSeriesStore store = new PriceSeriesStore(dir)) {
+            assertThat(store.range(KEY, Instant.EPOCH, Instant.MAX, 1000)).isEqualTo(points(written));
+        }
+    }
+
+    @Test
+    void ignoresATornRecordAtTheEndOfTheLog() throws IOException {
+        List<Observation> written = irregularSeries();
+        PriceSeriesStore crashed = new PriceSeriesStore(dir);
+        crashed.append(written);
+        Files.write(dir.resolve("prices.open"), new byte[] {0, 0, 0, 40, 1, 2, 3}, StandardOpenOption.APPEND);
+
+        try (PriceSeriesStore store = new PriceSeriesStore(dir)) {
+            assertThat(store.range(KEY, Instant.EPOCH, Instant.MAX, 1000)).isEqualTo(points(written));
+            store.append(List.of(observation(50_000, 1.00, "$", true)));
+        }
+        try (PriceSeriesStore store = new PriceSeriesStore(dir)) {
+            assertThat(store.range(KEY, Instant.EPOCH, Instant.MAX, 1000)).hasSize(written.size() + 1);
+        }
+    }
+
+    /** Intervalos variables (delta-de-delta negativo y positivo), bajadas de precio y cambios de disponibilidad. */
+    private static List<Observation> irregularSeries() {
+        long[] offsets = {0, 300, 600, 900, 905, 1800, 1801, 1802, 3600, 3601,
+                3602, 7200, 7260, 7320, 40_000, 40_001, 40_100, 60_000, 60_000, 86_399};
+        double[] prices = {19.99, 19.99, 18.49, 18.49, 1299.99, 0.01, 0.01, 250.00, 249.99, 249.99,
+                10.00, 10.00, 99_999.99, 5.55, 5.56, 5.54, 5.54, 42.00, 41.00, 40.00};
+        List<Observation> series = new ArrayList<>();
+        for (int i = 0; i < offsets.length; i++) {
+            series.add(observation(offsets[i], prices[i], "$", i % 3 != 0));
+        }
+        return series;
+    }
+
+    private static Observation observation(long offsetSeconds, double price, String currency, boolean available) {
+        return new Observation(KEY, DAY_START.plusSeconds(offsetSeconds), price, currency, available);
+    }
+
+    private static List<PricePoint> points(List<Observation> observations) {
+        return observations.stream()
+                .map(o -> new PricePoint(o.observedAt(), o.price(), o.currency(), o.available()))
+                .toList();
+    }
+}
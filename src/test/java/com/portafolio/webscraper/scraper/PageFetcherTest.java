@@ -0,0 +1,96 @@
+package com.portafolio.webscraper.scraper;
+
+import org.jsoup.nodes.Document;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PageFetcherTest {
+
+    private static final String URL = "https://tienda.example/producto/1";
+
+    private static final String JSON_LD = """
+            <script type="application/ld+json">
+            {"@type": "Product", "name": "Auriculares", "image": "https://tienda.example/a.jpg",
+             "aggregateRating": {"ratingValue": 4.5, "reviewCount": 120},
+             "offers": {"price": "59.99", "priceCurrency": "USD", "availability": "https://schema.org/InStock"}}
+            </script>
+            """;
+
+    @TempDir
+    Path root;
+
+    @Test
+    void stopsAsSoonAsStructuredDataIsComplete() throws IOException {
+        PageFetcher fetcher = replayOf("<html><head>" + JSON_LD + "</head><body>"
+                + "<h1 id=title>Auriculares</h1><div id=footer>pie</div></body></html>");
+
+        StructuredDataExtractor.Collector structured = new StructuredDataExtractor.Collector();
+        Document doc = fetcher.fetchDocumentUntil(URL, Map.of(), List.of("#title", "#missing"), structured);
+
+        assertThat(doc.text()).doesNotContain("pie");
+        StructuredDataExtractor.StructuredProduct data = structured.finish(doc);
+        assertThat(data.name()).isEqualTo("Auriculares");
+        assertThat(data.price()).isEqualTo(59.99);
+        assertThat(data.currency()).isEqualTo("$");
+        assertThat(data.reviewCount()).isEqualTo(120);
+    }
+
+    @Test
+    void stopsOnceEveryDomSelectorIsFoundWhenStructuredDataIsIncomplete() throws IOException {
+        PageFetcher fetcher = replayOf("<html><body><h1 id=title>Auriculares</h1><span id=price>$59.99</span>"
+                + "<div id=footer>pie</div>" + JSON_LD + "</body></html>");
+
+        StructuredDataExtractor.Collector structured = new StructuredDataExtractor.Collector();
+        Document doc = fetcher.fetchDocumentUntil(URL, Map.of(), List.of("#title", "#price"), structured);
+
+        assertThat(doc.selectFirst("#price")).isNotNull();
+        // El parser puede haber abierto ya la etiqueta siguiente, pero no su contenido
+        assertThat(doc.text()).doesNotContain("pie");
+        assertThat(structured.finish(doc).name()).isNull();
+    }
+
+    @Test
+    void readsTheWholePageWhenNeitherConditionIsMet() throws IOException {
+        PageFetcher fetcher = replayOf("<html><body><h1 id=title>Auriculares</h1><div id=footer>pie</div>"
+                + "<script id=\"__NEXT_DATA__\" type=\"application/json\">"
+                + "{\"props\": {\"product\": {\"name\": \"Auriculares\", \"priceInfo\": {\"currentPrice\":"
+                + " {\"price\": 59.99, \"currencyUnit\": \"USD\"}}}}}</script></body></html>");
+
+        StructuredDataExtractor.Collector structured = new StructuredDataExtractor.Collector();
+        Document doc = fetcher.fetchDocumentUntil(URL, Map.of(), List.of("#title", "#missing"), structured);
+
+        assertThat(doc.text()).contains("pie");
+        StructuredDataExtractor.StructuredProduct data = structured.finish(doc);
+        assertThat(data.price()).isEqualTo(59.99);
+        assertThat(data.currency()).isEqualTo("$");
+    }
+
+    @Test
+    void replayedRedirectResolvesLinksAgainstTheFinalUrl() throws IOException {
+        PageFetcher fetcher = replayOf("<html><body><a id=reviews href=\"opiniones\">Opiniones</a></body></html>",
+                "https://tienda.example/catalogo/auriculares-1");
+
+        Document doc = fetcher.fetchDocument(URL, Map.of());
+
+        assertThat(doc.selectFirst("#reviews").absUrl("href")).isEqualTo("https://tienda.example/catalogo/opiniones");
+    }
+
+    private PageFetcher replayOf(String html) throws IOException {
+        return replayOf(html, null);
+    }
+
+    private PageFetcher replayOf(String html, String finalUrl) throws IOException {
+        PageStore store = new PageStore(root, PageStore.Mode.RECORD, Duration.ofHours(1), 16);
+        store.put(URL, html.getBytes(StandardCharsets.UTF_8), "UTF-8", finalUrl);
+        return new PageFetcher(new PolitenessScheduler(), store);
+    }
+}
@@ -0,0 +1,149 @@
+package com.portafolio.webscraper.scraper;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PageStoreTest {
+
+    private static final Duration TTL = Duration.ofHours(1);
+
+    @TempDir
+    Path root;
+
+    @Test
+    void findsEveryUrlThroughLinearProbing() throws IOException {
+        // 40 URLs en 64 huecos: colisiones seguras, sin llegar al 75% que dispara la limpieza
+        try (PageStore store = new PageStore(root, PageStore.Mode.RECORD, TTL, 64)) {
+            for (int i = 0; i < 40; i++) {
+                store.put(url(i), body(i), "UTF-8", null);
+            }
+            for (int i = 0; i < 40; i++) {
+                assertThat(store.get(url(i))).get()
+                        .extracting(PageStore.StoredPage::body).isEqualTo(body(i));
+            }
+            assertThat(store.get("https://tienda.example/otra")).isEmpty();
+        }
+    }
+
+    @Test
+    void overwritingAUrlKeepsTheLatestBody() throws IOException {
+        try (PageStore store = new PageStore(root, PageStore.Mode.RECORD, TTL, 16)) {
+            store.put(url(1), body(1), "UTF-8", null);
+            store.put(url(1), body(2), "ISO-8859-1", null);
+
+            PageStore.StoredPage page = store.get(url(1)).orElseThrow();
+            assertThat(page.body()).isEqualTo(body(2));
+            assertThat(page.charset()).isEqualTo("ISO-8859-1");
+        }
+    }
+
+    @Test
+    void makesRoomWhenTheIndexFillsUpEvenWithinTheSameMillisecond() throws IOException {
+        try (PageStore store = new PageStore(root, PageStore.Mode.RECORD, TTL, 8)) {
+            for (int i = 0; i < 50; i++) {
+                store.put(url(i), body(i), null, null);
+            }
+            // La última escritura siempre sobrevive a la limpieza
+            assertThat(store.get(url(49))).get()
+                    .extracting(PageStore.StoredPage::body).isEqualTo(body(49));
+        }
+    }
+
+    @Test
+    void keepsEntriesAndSlotCountAcrossReopen() throws IOException {
+        try (PageStore store = new PageStore(root, PageStore.Mode.RECORD, TTL, 32)) {
+            for (int i = 0; i < 20; i++) {
+                store.put(url(i), body(i), "UTF-8", null);
+            }
+        }
+        // El tamaño pedido se ignora: manda el que está grabado en la cabecera del índice
+        try (PageStore store = new PageStore(root, PageStore.Mode.REPLAY, TTL, 1024)) {
+            for (int i = 0; i < 20; i++) {
+                PageStore.StoredPage page = store.get(url(i)).orElseThrow();
+                assertThat(page.body()).isEqualTo(body(i));
+                assertThat(page.charset()).isEqualTo("UTF-8");
+            }
+        }
+        assertThat(Files.size(root.resolve("index.dat"))).isLessThan(1024L * 8);
+    }
+
+    @Test
+    void keepsTheFinalUrlOfARedirectAcrossReopen() throws IOException {
+        try (PageStore store = new PageStore(root, PageStore.Mode.RECORD, TTL, 16)) {
+            store.put(url(1), body(1), "UTF-8", "https://tienda.example/final/1");
+            store.put(url(2), body(2), "UTF-8", url(2));
+        }
+        try (PageStore store = new PageStore(root, PageStore.Mode.REPLAY, TTL, 16)) {
+            assertThat(store.get(url(1)).orElseThrow().finalUrl()).isEqualTo("https://tienda.example/final/1");
+            // Sin redirección no se guarda nada aparte y se devuelve la URL pedida
+            assertThat(store.get(url(2)).orElseThrow().finalUrl()).isEqualTo(url(2));
+            assertThat(blobs()).hasSize(3);
+        }
+    }
+
+    @Test
+    void missingBlobIsAMiss() throws IOException {
+        try (PageStore store = new PageStore(root, PageStore.Mode.RECORD, TTL, 16)) {
+            store.put(url(1), body(1), "UTF-8", null);
+            for (Path blob : blobs()) {
+                Files.delete(blob);
+            }
+            assertThat(store.get(url(1))).isEmpty();
+        }
+    }
+
+    @Test
+    void identicalBodiesShareOneBlob() throws IOException {
+        try (PageStore store = new PageStore(root, PageStore.Mode.RECORD, TTL, 16)) {
+            store.put(url(1), body(7), "UTF-8", null);
+            store.put(url(2), body(7), "UTF-8", null);
+            assertThat(blobs()).hasSize(1);
+        }
+    }
+
+    @Test
+    void unrecognizedIndexIsRecreated() throws IOException {
+        Files.write(root.resolve("index.dat"), new byte[4096]);
+        try (PageStore store = new PageStore(root, PageStore.Mode.RECORD, TTL, 16)) {
+            assertThat(store.get(url(1))).isEmpty();
+            store.put(url(1), body(1), "UTF-8", null);
+            assertThat(store.get(url(1))).isPresent();
+        }
+    }
+
+    @Test
+    void recordModeHidesExpiredEntriesButReplayServesThem() throws IOException, InterruptedException {
+        try (PageStore store = new PageStore(root, PageStore.Mode.RECORD, Duration.ofMillis(1), 16)) {
+            store.put(url(1), body(1), "UTF-8", null);
+            Thread.sleep(5);
+            assertThat(store.get(url(1))).isEmpty();
+        }
+        try (PageStore store = new PageStore(root, PageStore.Mode.REPLAY, Duration.ofMillis(1), 16)) {
+            assertThat(store.get(url(1))).isPresent();
+        }
+    }
+
+    private List<Path> blobs() throws IOException {
+        try (Stream<Path> files = Files.walk(root.resolve("blobs"))) {
+            return files.filter(path -> path.toString().endsWith(".gz")).toList();
+        }
+    }
+
+    private static String url(int i) {
+        return "https://tienda.example/producto/" + i;
+    }
+
+    private static byte[] body(int i) {
+        return ("<html><body>Producto " + i + "</body></html>").getBytes(StandardCharsets.UTF_8);
+    }
+}
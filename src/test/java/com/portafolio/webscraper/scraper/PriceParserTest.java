@@ -0,0 +1,83 @@
+package com.portafolio.webscraper.scraper;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+import java.util.Locale;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PriceParserTest {
+
+    private static final PriceParser SPAIN = PriceParser.forLocale(Locale.forLanguageTag("es-ES"));
+
+    @ParameterizedTest
+    @CsvSource(delimiter = '|', value = {
+            "1,299.99        | 1299.99",
+            "1.299,99        | 1299.99",
+            "1,299           | 1299",
+            "1.299           | 1.299",
+            "$1,234,567.89   | 1234567.89",
+            "1.234.567       | 1234567",
+            "1 299,99 €      | 1299.99",
+            "1'299.50        | 1299.5",
+            "$10.99 - $15.99 | 10.99",
+            "US $12.5        | 12.5",
+            "Precio: 7       | 7"
+    })
+    void parsesUsPrices(String text, double expected) {
+        assertThat(PriceParser.US.parse(text)).isEqualTo(expected);
+    }
+
+    @ParameterizedTest
+    @CsvSource(delimiter = '|', value = {
+            "1.299           | 1299",
+            "1,299           | 1.299",
+            "1.299,99        | 1299.99",
+            "1,299.99        | 1299.99",
+            "12,5 €          | 12.5"
+    })
+    void ambiguousThousandsFollowTheLocale(String text, double expected) {
+        assertThat(SPAIN.parse(text)).isEqualTo(expected);
+    }
+
+    @Test
+    void missingOrZeroPricesAreNull() {
+        assertThat(PriceParser.US.parse("sin precio")).isNaN();
+        assertThat(PriceParser.US.parseOrNull("sin precio")).isNull();
+        assertThat(PriceParser.US.parseOrNull("$0.00")).isNull();
+        assertThat(PriceParser.US.parseOrNull(null)).isNull();
+    }
+
+    @Test
+    void separatorsWithoutFollowingDigitsEndTheNumber() {
+        assertThat(PriceParser.US.parse("12. Envío gratis")).isEqualTo(12);
+        assertThat(PriceParser.US.parse("1 29")).isEqualTo(1);
+    }
+
+    @Test
+    void parsesCounts() {
+        assertThat(PriceParser.parseCount("1,234 ratings")).isEqualTo(1234);
+        assertThat(PriceParser.parseCount("(12.345)")).isEqualTo(12345);
+        assertThat(PriceParser.parseCount("sin valoraciones")).isNull();
+    }
+
+    @ParameterizedTest
+    @CsvSource(delimiter = '|', value = {
+            "$12.99     | $",
+            "12,99 €    | €",
+            "EUR 12,99  | €",
+            "MXN 100    | MX$",
+            "£5         | £"
+    })
+    void detectsCurrency(String text, String expected) {
+        assertThat(PriceParser.detectCurrency(text)).isEqualTo(expected);
+    }
+
+    @Test
+    void noCurrencyIsNull() {
+        assertThat(PriceParser.detectCurrency("12.99")).isNull();
+        assertThat(PriceParser.detectCurrency(null)).isNull();
+    }
+}
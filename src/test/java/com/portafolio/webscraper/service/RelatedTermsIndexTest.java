@@ -0,0 +1,40 @@
+package com.portafolio.webscraper.services;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.assertj.core.api.Assertions.within;
+
+class RelatedTermsIndexTest {
+
+    private static final long HALF_LIFE = 1000;
+
+    @Test
+    void weightsHalveEveryHalfLifeAndFadeOut() {
+        RelatedTermsIndex index = new RelatedTermsIndex(4, HALF_LIFE);
+        index.add("ipad air", "tablet apple", 1, 0);
+        index.add("ipad air", "tablet apple", 1, 0);
+
+        assertThat(index.related("ipad air", 5, HALF_LIFE)).singleElement()
+                .satisfies(related -> assertThat(related.weight()).isCloseTo(1.0, within(1e-9)));
+        assertThat(index.related("ipad air", 5, 2 * HALF_LIFE)).singleElement()
+                .satisfies(related -> assertThat(related.weight()).isCloseTo(0.5, within(1e-9)));
+        // 2 / 2^6 < 0.05: ya no cuenta como relacionado
+        assertThat(index.related("ipad air", 5, 6 * HALF_LIFE)).isEmpty();
+    }
+
+    @Test
+    void aNewNeighborReplacesTheWeakestOneAndInheritsItsWeight() {
+        RelatedTermsIndex index = new RelatedTermsIndex(2, HALF_LIFE);
+        index.add("ipad", "tablet", 3, 0);
+        index.add("ipad", "apple", 1, 0);
+
+        index.add("ipad", "ipad air", 1, 0);
+
+        assertThat(index.related("ipad", 5, 0))
+                .extracting(StatsService.RelatedTerm::term, StatsService.RelatedTerm::weight)
+                .containsExactly(tuple("tablet", 3.0),
+                        tuple("ipad air", 2.0));
+    }
+}
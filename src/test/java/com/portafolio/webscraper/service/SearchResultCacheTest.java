@@ -0,0 +1,61 @@
+package com.portafolio.webscraper.service;
+
+import com.portafolio.webscraper.model.ProductInfo;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SearchResultCacheTest {
+
+    // Ejecutor síncrono: las recargas "en segundo plano" terminan antes de volver
+    private final SearchResultCache cache = new SearchResultCache(Runnable::run, 10, 300, 600);
+    private final AtomicInteger refreshes = new AtomicInteger();
+    private final Supplier<List<ProductInfo>> refresher = () -> {
+        refreshes.incrementAndGet();
+        return List.of(product("recargado"));
+    };
+
+    @Test
+    void freshEntryIsServedWithoutRefreshing() {
+        cache.put("Auriculares", List.of(product("guardado")));
+
+        assertThat(cache.getIfPresent("auriculares", refresher)).extracting(ProductInfo::getName)
+                .containsExactly("guardado");
+        assertThat(refreshes).hasValue(0);
+    }
+
+    @Test
+    void recentPersistentRowKeepsItsAgeAndStaysFresh() {
+        cache.put("auriculares", List.of(product("guardado")), Instant.now().minusSeconds(60), refresher);
+
+        assertThat(cache.getIfPresent("auriculares", refresher)).extracting(ProductInfo::getName)
+                .containsExactly("guardado");
+        assertThat(refreshes).hasValue(0);
+    }
+
+    @Test
+    void oldPersistentRowIsRevalidatedAgainstTheStores() {
+        cache.put("auriculares", List.of(product("guardado")), Instant.now().minus(Duration.ofMinutes(90)), refresher);
+
+        assertThat(refreshes).hasValue(1);
+        assertThat(cache.getIfPresent("auriculares", refresher)).extracting(ProductInfo::getName)
+                .containsExactly("recargado");
+        assertThat(cache.getStats().refreshes()).isEqualTo(1);
+    }
+
+    @Test
+    void missReturnsNull() {
+        assertThat(cache.getIfPresent("auriculares", refresher)).isNull();
+        assertThat(refreshes).hasValue(0);
+    }
+
+    private static ProductInfo product(String name) {
+        return ProductInfo.builder().name(name).productUrl("https://tienda.example/" + name).build();
+    }
+}
@@ -0,0 +1,55 @@
+package com.portafolio.webscraper.services;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+class SearchSuggesterTest {
+
+    private final StatsService stats = new StatsService(100, 20, 168, 1000);
+    // Como mucho 3 términos cambiados antes de mezclarlos con la base
+    private final SearchSuggester suggester = new SearchSuggester(stats, 100, 2, 3);
+
+    @Test
+    void suggestsByPopularityAfterTheFirstFullBuild() {
+        search("ipad", 5);
+        search("iphone 15", 3);
+        search("ipod", 1);
+        suggester.rebuild();
+
+        assertThat(suggester.suggest("IP", 10)).extracting(SearchSuggester.Suggestion::term)
+                .containsExactly("ipad", "iphone 15");
+        assertThat(suggester.suggest("ipo", 10)).extracting(SearchSuggester.Suggestion::term)
+                .containsExactly("ipod");
+    }
+
+    @Test
+    void changedTermsOverrideTheBaseUntilTheyAreMerged() {
+        search("ipad", 5);
+        search("iphone 15", 3);
+        search("ipod", 1);
+        suggester.rebuild();
+
+        // Un cambio: va al índice de cambios y oculta su entrada de la base
+        search("ipod", 9);
+        suggester.rebuild();
+        assertThat(suggester.suggest("ip", 10)).extracting(SearchSuggester.Suggestion::term, SearchSuggester.Suggestion::count)
+                .containsExactly(tuple("ipod", 10L), tuple("ipad", 5L));
+
+        // Tres cambios acumulados: se mezclan con la base
+        search("iphone 15", 10);
+        search("ipad mini", 1);
+        suggester.rebuild();
+        assertThat(suggester.suggest("ip", 10)).extracting(SearchSuggester.Suggestion::term)
+                .containsExactly("iphone 15", "ipod");
+        assertThat(suggester.suggest("ipad m", 10)).extracting(SearchSuggester.Suggestion::term)
+                .containsExactly("ipad mini");
+    }
+
+    private void search(String term, int times) {
+        for (int i = 0; i < times; i++) {
+            stats.recordSearch(term);
+        }
+    }
+}
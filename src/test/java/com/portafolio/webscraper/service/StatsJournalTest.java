@@ -0,0 +1,120 @@
+package com.portafolio.webscraper.services;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class StatsJournalTest {
+
+    @TempDir
+    Path running;
+
+    @TempDir
+    Path crashed;
+
+    private final List<StatsJournal> journals = new ArrayList<>();
+
+    @AfterEach
+    void stopJournals() {
+        journals.forEach(StatsJournal::stop);
+    }
+
+    @Test
+    void replaysEveryBatchWrittenBeforeTheCrash() throws Exception {
+        writeTwoBatchesAndCrash();
+
+        StatsService recovered = recover();
+
+        assertThat(recovered.countOf("ipad")).isEqualTo(3);
+        assertThat(recovered.countOf("kindle")).isEqualTo(2);
+    }
+
+    @Test
+    void ignoresATornFinalBatch() throws Exception {
+        Path log = writeTwoBatchesAndCrash();
+        try (FileChannel channel = FileChannel.open(log, StandardOpenOption.WRITE)) {
+            channel.truncate(channel.size() - 3);
+        }
+
+        StatsService recovered = recover();
+
+        assertThat(recovered.countOf("ipad")).isEqualTo(3);
+        assertThat(recovered.countOf("kindle")).isZero();
+    }
+
+    @Test
+    void ignoresAFinalBatchWithABadChecksum() throws Exception {
+        Path log = writeTwoBatchesAndCrash();
+        byte[] bytes = Files.readAllBytes(log);
+        bytes[bytes.length - 1] ^= 0x5A;
+        Files.write(log, bytes);
+
+        StatsService recovered = recover();
+
+        assertThat(recovered.countOf("ipad")).isEqualTo(3);
+        assertThat(recovered.countOf("kindle")).isZero();
+    }
+
+    /**
+     * Escribe dos lotes ("ipad" ×3 y "kindle" ×2), copia el directorio tal cual (como si el proceso
+     * muriera ahí) y devuelve el diario de la copia.
+     */
+    private Path writeTwoBatchesAndCrash() throws Exception {
+        StatsService stats = new StatsService(100, 20, 168, 1000);
+        StatsJournal journal = start(stats, running);
+        search(stats, "ipad", 3);
+        awaitLogged(journal, 3);
+        search(stats, "kindle", 2);
+        awaitLogged(journal, 5);
+        assertThat(journal.getStats().batches()).isEqualTo(2);
+
+        List<Path> logs = new ArrayList<>();
+        try (Stream<Path> files = Files.list(running)) {
+            for (Path file : files.toList()) {
+                Path copy = Files.copy(file, crashed.resolve(file.getFileName()));
+                if (file.getFileName().toString().endsWith(".log")) {
+                    logs.add(copy);
+                }
+            }
+        }
+        assertThat(logs).hasSize(1);
+        return logs.get(0);
+    }
+
+    private StatsService recover() throws IOException {
+        StatsService recovered = new StatsService(100, 20, 168, 1000);
+        start(recovered, crashed);
+        return recovered;
+    }
+
+    private StatsJournal start(StatsService stats, Path dir) throws IOException {
+        StatsJournal journal = new StatsJournal(stats, true, dir.toString(), 10, 3_600_000, 1 << 20, 1000);
+        journal.start();
+        journals.add(journal);
+        return journal;
+    }
+
+    private static void awaitLogged(StatsJournal journal, long events) throws InterruptedException {
+        for (int i = 0; i < 500 && journal.getStats().logged() < events; i++) {
+            Thread.sleep(10);
+        }
+        assertThat(journal.getStats().logged()).isEqualTo(events);
+    }
+
+    private static void search(StatsService stats, String term, int times) {
+        for (int i = 0; i < times; i++) {
+            stats.recordSearch(term);
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package com.portafolio.webscraper.services;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+class StatsServiceTest {
+
+    @Test
+    void topSearchesFollowTheLatestCounts() {
+        StatsService stats = new StatsService(100, 20, 168, 1000);
+        search(stats, "ipad", 3);
+        search(stats, "kindle", 5);
+        search(stats, "ps5", 1);
+        assertThat(stats.getTopSearches(2)).extracting(StatsService.SearchTermCount::getTerm)
+                .containsExactly("kindle", "ipad");
+
+        search(stats, "ps5", 6);
+
+        assertThat(stats.getTopSearches(2)).extracting(StatsService.SearchTermCount::getTerm)
+                .containsExactly("ps5", "kindle");
+        assertThat(stats.getTopSearches(null)).extracting(StatsService.SearchTermCount::getCount)
+                .containsExactly(7, 5, 3);
+    }
+
+    @Test
+    void pruningKeepsTheHeavyHittersExactAndChargesNewTermsTheEvictedCount() {
+        // max-terms 10: la poda salta al pasar de 10 + 16 términos
+        StatsService stats = new StatsService(10, 20, 168, 1000);
+        for (int i = 0; i < 10; i++) {
+            search(stats, "frecuente " + i, 100 + i);
+        }
+        for (int i = 0; i < 17; i++) {
+            search(stats, "raro " + i, 1);
+        }
+
+        assertThat(stats.getTrackedTerms()).isLessThanOrEqualTo(10 + 16);
+        assertThat(stats.getTopSearches(10)).allSatisfy(term -> {
+            assertThat(term.getTerm()).startsWith("frecuente");
+            assertThat(term.getError()).isZero();
+        });
+
+        search(stats, "nuevo", 1);
+        StatsService.SearchTermCount added = stats.getTopSearches(null).stream()
+                .filter(term -> term.getTerm().equals("nuevo")).findFirst().orElseThrow();
+        assertThat(added.getError()).isEqualTo(1);
+        assertThat(added.getCount()).isEqualTo(2);
+    }
+
+    @Test
+    void termsThatFindTheSameProductBecomeRelated() {
+        StatsService stats = new StatsService(100, 20, 168, 1000);
+        stats.recordSearch("iPad Air");
+        stats.recordResults("iPad Air", List.of("amazon:B0AIR", "walmart:123"));
+        stats.recordSearch("tablet apple");
+        stats.recordResults("tablet apple", List.of("walmart:123"));
+        stats.recordSearch("kindle");
+        stats.recordResults("kindle", List.of("amazon:KINDLE"));
+
+        assertThat(stats.getRelatedSearches("ipad air")).containsExactly("tablet apple");
+        assertThat(stats.getRelatedSearches("tablet apple")).containsExactly("ipad air");
+        assertThat(stats.getRelatedSearches("kindle")).isEmpty();
+
+        // Cada búsqueda que vuelve a coincidir refuerza la arista
+        stats.recordResults("tablet apple", List.of("amazon:B0AIR", "walmart:123"));
+        assertThat(stats.getRelatedTerms("ipad air", 5)).singleElement()
+                .satisfies(related -> assertThat(related.weight()).isCloseTo(2.0, within(0.01)));
+    }
+
+    @Test
+    void resultsOfAnUntrackedTermAddNoEdgesFromIt() {
+        StatsService stats = new StatsService(100, 20, 168, 1000);
+        stats.recordSearch("ipad air");
+        stats.recordResults("ipad air", List.of("walmart:123"));
+        // Como si "tablet apple" se hubiera podado antes de llegar sus resultados
+        stats.recordResults("tablet apple", List.of("walmart:123"));
+
+        assertThat(stats.getRelatedSearches("ipad air")).isEmpty();
+        assertThat(stats.getRelatedSearches("tablet apple")).isEmpty();
+    }
+
+    private static void search(StatsService stats, String term, int times) {
+        for (int i = 0; i < times; i++) {
+            stats.recordSearch(term);
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package com.portafolio.webscraper.service;
+
+import com.portafolio.webscraper.model.PriceWatch;
+import com.portafolio.webscraper.model.ProductInfo;
+import com.portafolio.webscraper.repository.PriceWatchRepository;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class WatchlistServiceTest {
+
+    private static final String URL = "https://www.amazon.com/dp/B0CM5JV268";
+
+    private final PriceWatchRepository repository = mock(PriceWatchRepository.class);
+    // Ejecutor síncrono: las alertas se entregan antes de que vuelva evaluate()
+    private final WatchlistService service = new WatchlistService(repository, Runnable::run);
+    private final AtomicLong ids = new AtomicLong();
+
+    WatchlistServiceTest() {
+        when(repository.save(any(PriceWatch.class))).thenAnswer(invocation -> {
+            PriceWatch watch = invocation.getArgument(0);
+            watch.setId(ids.incrementAndGet());
+            return watch;
+        });
+    }
+
+    @Test
+    void alertsOnlyReachTheSubscribersOfTheWatchOwner() {
+        PriceWatch anasWatch = service.create("ana", null, "auriculares", 60.0);
+        service.create("luis", null, "teclado", 30.0);
+        List<WatchlistService.PriceAlert> toAna = new ArrayList<>();
+        List<WatchlistService.PriceAlert> toLuis = new ArrayList<>();
+        service.subscribe("ana", toAna::add);
+        service.subscribe("luis", toLuis::add);
+
+        service.evaluate("Auriculares", List.of(product(55.0)));
+
+        assertThat(toAna).extracting(WatchlistService.PriceAlert::watchId).containsExactly(anasWatch.getId());
+        assertThat(toLuis).isEmpty();
+    }
+
+    @Test
+    void unsubscribedReceiversGetNothing() {
+        service.create("ana", null, "auriculares", 60.0);
+        List<WatchlistService.PriceAlert> received = new ArrayList<>();
+        service.subscribe("ana", received::add).run();
+
+        service.evaluate("auriculares", List.of(product(50.0)));
+
+        assertThat(received).isEmpty();
+        assertThat(service.getStats().subscribers()).isZero();
+    }
+
+    @Test
+    void cannotDeleteAnotherUsersWatch() {
+        PriceWatch watch = service.create("ana", null, "auriculares", 60.0);
+        when(repository.findById(watch.getId())).thenReturn(Optional.of(watch));
+
+        assertThat(service.delete("luis", watch.getId())).isFalse();
+        verify(repository, never()).delete(any(PriceWatch.class));
+        assertThat(service.delete("ana", watch.getId())).isTrue();
+        verify(repository).delete(watch);
+    }
+
+    private static ProductInfo product(double price) {
+        return ProductInfo.builder()
+                .name("Auriculares")
+                .storeName("Amazon")
+                .productUrl(URL)
+                .currentPrice(price)
+                .currency("$")
+                .available(true)
+                .build();
+    }
+}